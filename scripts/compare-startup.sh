@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+#
+# Copyright (c) 2021 Oracle and/or its affiliates.
+# Licensed under the Universal Permissive License v 1.0 as shown at
+# https://oss.oracle.com/licenses/upl.
+#
+# Compares the startup time and the resident memory of the JVM and the native
+# images of the application, which have to be built and published to the local
+# Docker daemon first:
+#
+#   mvn -P docker package && mvn -P native,docker-native package
+#
+# The startup time is measured from starting the container until the health
+# endpoint responds, and the memory is measured once the application is idle,
+# and again after a short burst of requests.
+#
+# Usage: scripts/compare-startup.sh [runs]
+#
+
+set -euo pipefail
+
+IMAGE=${IMAGE:-ghcr.io/coherence-community/todo-list-micronaut-server}
+VERSION=${VERSION:-22.06.1}
+RUNS=${1:-5}
+PORT=${PORT:-5001}
+URL="http://127.0.0.1:${PORT}"
+
+# returns the current time in milliseconds
+now() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# returns the memory used by the specified container
+memory() {
+  docker stats --no-stream --format "{{.MemUsage}}" "$1" | cut -d/ -f1 | tr -d ' '
+}
+
+# measures a single run of the specified image
+measure() {
+  local image=$1
+  local start container elapsed idle loaded
+
+  start=$(now)
+  container=$(docker run -d --rm -p "${PORT}:5001" "${image}")
+  until curl -sf "${URL}/health" > /dev/null; do
+    sleep 0.01
+  done
+  elapsed=$(( $(now) - start ))
+
+  sleep 2
+  idle=$(memory "${container}")
+
+  for i in $(seq 1 200); do
+    curl -sf -H "Content-Type: application/json" -d "{\"description\":\"Task ${i}\"}" "${URL}/api/tasks" > /dev/null
+    curl -sf "${URL}/api/tasks" > /dev/null
+  done
+  loaded=$(memory "${container}")
+
+  docker stop "${container}" > /dev/null
+  printf "%-8s %10s %12s %12s\n" "$2" "${elapsed}" "${idle}" "${loaded}"
+}
+
+printf "%-8s %10s %12s %12s\n" "image" "start (ms)" "idle RSS" "loaded RSS"
+for run in $(seq 1 "${RUNS}"); do
+  measure "${IMAGE}:${VERSION}" "jvm"
+  measure "${IMAGE}:${VERSION}-native" "native"
+done
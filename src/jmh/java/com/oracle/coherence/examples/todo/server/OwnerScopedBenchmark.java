@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.PartitionedService;
+
+import io.micronaut.context.ApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.tangosol.util.Filters.equal;
+
+/**
+ * Measures how the latency of the queries and aggregations scoped to a single
+ * user scales with the number of storage members, when they are executed on
+ * the single member that owns the user's partition, compared to when they are
+ * executed by all members.
+ * <p>
+ * The benchmark runs one storage member in-process, and starts the remaining
+ * {@code memberCount - 1} storage members as separate processes, using the
+ * same class path. The cache is pre-loaded with {@code tasksPerOwner} tasks
+ * for each of the {@code ownerCount} users once all members have joined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OwnerScopedBenchmark
+    {
+    @Param({"1", "2", "4"})
+    public int memberCount;
+
+    @Param({"1000"})
+    public int ownerCount;
+
+    @Param({"100"})
+    public int tasksPerOwner;
+
+    private final List<Process> members = new ArrayList<>();
+
+    private ApplicationContext context;
+
+    private ToDoListService service;
+
+    private TaskRepository repository;
+
+    @Setup
+    public void setup()
+            throws IOException, InterruptedException
+        {
+        for (int i = 1; i < memberCount; i++)
+            {
+            members.add(startMember());
+            }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("coherence.cluster", CLUSTER);
+        properties.put("coherence.wka", "127.0.0.1");
+        properties.put("coherence.localhost", "127.0.0.1");
+        properties.put("coherence.ttl", "0");
+        properties.put("coherence.metrics.http.enabled", "false");
+
+        context    = ApplicationContext.run(properties);
+        service    = context.getBean(ToDoListService.class);
+        repository = context.getBean(TaskRepository.class);
+
+        awaitMembers();
+
+        List<String> descriptions = new ArrayList<>(tasksPerOwner);
+        for (int i = 0; i < tasksPerOwner; i++)
+            {
+            descriptions.add("Task " + i);
+            }
+        for (int i = 0; i < ownerCount; i++)
+            {
+            service.createTasks(owner(i), descriptions);
+            }
+        }
+
+    @TearDown
+    public void tearDown()
+        {
+        context.close();
+        members.forEach(Process::destroy);
+        }
+
+    @Benchmark
+    public Collection<Task> ownerTasks()
+        {
+        return service.getTasks(randomOwner(), null);
+        }
+
+    @Benchmark
+    public Collection<Task> ownerTasksFanOut()
+        {
+        return repository.getAllOrderedBy(equal(Task::getOwner, randomOwner()), Task::getCreatedAt);
+        }
+
+    @Benchmark
+    public TaskStats ownerStats()
+        {
+        return service.getTaskStats(randomOwner());
+        }
+
+    @Benchmark
+    public TaskStats ownerStatsFanOut()
+        {
+        return repository.getStats(equal(Task::getOwner, randomOwner()));
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Start a storage member in a separate process.
+     *
+     * @return the started process
+     *
+     * @throws IOException if the process could not be started
+     */
+    private Process startMember()
+            throws IOException
+        {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        return new ProcessBuilder(java,
+                                  "-Dcoherence.cluster=" + CLUSTER,
+                                  "-Dcoherence.wka=127.0.0.1",
+                                  "-Dcoherence.localhost=127.0.0.1",
+                                  "-Dcoherence.ttl=0",
+                                  "-Dcoherence.cacheconfig=todo-cache-config.xml",
+                                  "-Dcoherence.pof.config=todo-pof-config.xml",
+                                  "-cp", System.getProperty("java.class.path"),
+                                  "com.tangosol.net.Coherence")
+                .inheritIO()
+                .start();
+        }
+
+    /**
+     * Wait until all storage members own partitions of the tasks service.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitMembers()
+            throws InterruptedException
+        {
+        PartitionedService tasksService = (PartitionedService) CacheFactory.getCluster().getService(SERVICE);
+        long               deadline     = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2);
+        while (tasksService.getOwnershipEnabledMembers().size() < memberCount)
+            {
+            if (System.currentTimeMillis() > deadline)
+                {
+                throw new IllegalStateException("Timed out waiting for " + memberCount + " storage members");
+                }
+            Thread.sleep(100);
+            }
+        }
+
+    private String randomOwner()
+        {
+        return owner(ThreadLocalRandom.current().nextInt(ownerCount));
+        }
+
+    private static String owner(int i)
+        {
+        return "user-" + i;
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The name of the benchmark cluster.
+     */
+    private static final String CLUSTER = "todo-benchmark";
+
+    /**
+     * The name of the partitioned service the tasks are stored in.
+     */
+    private static final String SERVICE = "Tasks";
+    }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.DefaultSerializer;
+import com.tangosol.io.Serializer;
+
+import com.tangosol.util.ExternalizableHelper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the {@link Task} {@code equals} and
+ * {@code hashCode} methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskBenchmark
+    {
+    private Task task;
+
+    private Task copy;
+
+    private Task other;
+
+    @Setup
+    public void setup()
+        {
+        TaskIdGenerator ids = new TimeOrderedTaskIdGenerator(1);
+
+        task  = new Task(ids.generateId(), "Benchmark the equality of a typical task").setCompleted(true);
+        copy  = ExternalizableHelper.fromBinary(ExternalizableHelper.toBinary(task, SERIALIZER), SERIALIZER);
+        other = new Task(ids.generateId(), "Benchmark the equality of another task");
+        }
+
+    @Benchmark
+    public int hashCodeOf()
+        {
+        return task.hashCode();
+        }
+
+    @Benchmark
+    public boolean equalsCopy()
+        {
+        return task.equals(copy);
+        }
+
+    @Benchmark
+    public boolean equalsOther()
+        {
+        return task.equals(other);
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The serializer used to create an equal copy of a task.
+     */
+    private static final Serializer SERIALIZER = new DefaultSerializer();
+    }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the {@link TaskIdGenerator} implementations,
+ * both from a single thread and from as many threads as there are available
+ * processors, all sharing the same generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskIdGeneratorBenchmark
+    {
+    @Param({"random", "time-ordered"})
+    public String generatorName;
+
+    private TaskIdGenerator generator;
+
+    @Setup
+    public void setup()
+        {
+        generator = "random".equals(generatorName)
+                    ? new RandomTaskIdGenerator()
+                    : new TimeOrderedTaskIdGenerator(1);
+        }
+
+    @Benchmark
+    @Threads(1)
+    public String generateId()
+        {
+        return generator.generateId();
+        }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateIdConcurrently()
+        {
+        return generator.generateId();
+        }
+    }
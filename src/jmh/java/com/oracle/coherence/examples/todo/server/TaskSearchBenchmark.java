@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import io.micronaut.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.tangosol.util.Filters.predicate;
+
+/**
+ * Compares the indexed creation time range and text searches of the
+ * {@link ToDoListService} with the equivalent full scans, against an
+ * in-process, single-member Coherence cluster pre-loaded with
+ * {@code taskCount} tasks.
+ * <p>
+ * Each task description consists of three random words and a sequence
+ * number, and each text search looks for a random four digit sequence
+ * number prefix, which matches roughly one hundred tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class TaskSearchBenchmark
+    {
+    @Param({"1000000"})
+    public int taskCount;
+
+    /**
+     * The fraction of the creation time window each range search covers.
+     */
+    @Param({"0.001"})
+    public double rangeFraction;
+
+    private ApplicationContext context;
+
+    private ToDoListService service;
+
+    private TaskRepository repository;
+
+    private long oldestCreatedAt;
+
+    private long createdAtWindow;
+
+    @Setup
+    public void setup()
+        {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("coherence.cluster", "todo-benchmark");
+        properties.put("coherence.wka", "127.0.0.1");
+        properties.put("coherence.localhost", "127.0.0.1");
+        properties.put("coherence.ttl", "0");
+        properties.put("coherence.metrics.http.enabled", "false");
+
+        context    = ApplicationContext.run(properties);
+        service    = context.getBean(ToDoListService.class);
+        repository = context.getBean(TaskRepository.class);
+
+        TaskIdGenerator   ids    = context.getBean(TaskIdGenerator.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Task>        batch  = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < taskCount; i++)
+            {
+            String description = WORDS[random.nextInt(WORDS.length)] + ' '
+                                 + WORDS[random.nextInt(WORDS.length)] + ' '
+                                 + WORDS[random.nextInt(WORDS.length)] + " #" + i;
+
+            batch.add(new Task(ids.generateId(), description));
+            if (batch.size() == BATCH_SIZE)
+                {
+                repository.saveAll(batch);
+                batch.clear();
+                }
+            }
+        repository.saveAll(batch);
+
+        TaskStats stats = service.getTaskStats(null);
+        oldestCreatedAt = stats.getOldestCreatedAt();
+        createdAtWindow = Math.max(stats.getNewestCreatedAt() - oldestCreatedAt, 1L);
+        }
+
+    @TearDown
+    public void tearDown()
+        {
+        context.close();
+        }
+
+    @Benchmark
+    public Collection<Task> searchText()
+        {
+        return service.searchTasks(null, null, null, null, randomText());
+        }
+
+    @Benchmark
+    public Collection<Task> scanText()
+        {
+        String text = randomText();
+        return repository.getAllOrderedBy(predicate(Task::getDescription,
+                                                    description -> description.toLowerCase().contains(text)),
+                                          Task::getCreatedAt);
+        }
+
+    @Benchmark
+    public TaskPage searchTextPage()
+        {
+        return service.searchTasks(null, null, null, null, randomText(), null, 20);
+        }
+
+    @Benchmark
+    public Collection<Task> searchCreatedRange()
+        {
+        long from = randomCreatedAt();
+        return service.searchTasks(null, null, from, from + rangeLength(), null);
+        }
+
+    @Benchmark
+    public Collection<Task> scanCreatedRange()
+        {
+        long from = randomCreatedAt();
+        long to   = from + rangeLength();
+        return repository.getAllOrderedBy(predicate(Task::getCreatedAt,
+                                                    createdAt -> createdAt >= from && createdAt < to),
+                                          Task::getCreatedAt);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    private String randomText()
+        {
+        return "#" + ThreadLocalRandom.current().nextInt(1000, 10000);
+        }
+
+    private long randomCreatedAt()
+        {
+        return oldestCreatedAt + ThreadLocalRandom.current().nextLong(createdAtWindow);
+        }
+
+    private long rangeLength()
+        {
+        return Math.max((long) (createdAtWindow * rangeFraction), 1L);
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The number of tasks saved by each bulk operation while pre-loading.
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * The words the task descriptions are made of.
+     */
+    private static final String[] WORDS =
+        {
+        "buy", "milk", "bread", "call", "mom", "write", "report", "review",
+        "pull", "request", "book", "flight", "hotel", "pay", "rent", "clean",
+        "kitchen", "garage", "walk", "dog", "fix", "bike", "plan", "trip",
+        "read", "paper", "water", "plants", "cook", "dinner", "email", "team"
+        };
+    }
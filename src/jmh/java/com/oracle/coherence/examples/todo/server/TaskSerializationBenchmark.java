@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.DefaultSerializer;
+import com.tangosol.io.Serializer;
+
+import com.tangosol.io.pof.ConfigurablePofContext;
+
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the size and the throughput of {@link Task} serialization
+ * using Java serialization and POF.
+ * <p>
+ * The serialized size of a task for each format is reported as the
+ * {@code bytes} auxiliary counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskSerializationBenchmark
+    {
+    @Param({"java", "pof"})
+    public String serializerName;
+
+    private Serializer serializer;
+
+    private Task task;
+
+    private Binary binary;
+
+    @Setup
+    public void setup()
+        {
+        serializer = "pof".equals(serializerName)
+                     ? new ConfigurablePofContext("todo-pof-config.xml")
+                     : new DefaultSerializer();
+
+        task   = new Task(new TimeOrderedTaskIdGenerator(1).generateId(),
+                          "Benchmark the serialization of a typical task").setCompleted(true);
+        binary = ExternalizableHelper.toBinary(task, serializer);
+        }
+
+    @Benchmark
+    public Binary serialize(SerializedSize size)
+        {
+        return ExternalizableHelper.toBinary(task, serializer);
+        }
+
+    @Benchmark
+    public Object deserialize(SerializedSize size)
+        {
+        return ExternalizableHelper.fromBinary(binary, serializer);
+        }
+
+    // ---- inner class: SerializedSize -------------------------------------
+
+    /**
+     * The auxiliary counter that reports the serialized size of the task.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SerializedSize
+        {
+        /**
+         * The serialized size of the task, in bytes.
+         */
+        public int bytes;
+
+        @Setup(Level.Iteration)
+        public void setup(TaskSerializationBenchmark benchmark)
+            {
+            bytes = benchmark.binary.length();
+            }
+        }
+    }
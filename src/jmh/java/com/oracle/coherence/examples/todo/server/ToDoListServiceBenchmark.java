@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import io.micronaut.context.ApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.tangosol.util.Filters.equal;
+
+/**
+ * Measures the throughput of the {@link ToDoListService} operations against
+ * an in-process, single-member Coherence cluster.
+ * <p>
+ * The cache is pre-loaded with {@code taskCount} tasks, half of which are
+ * completed. The tasks created during each iteration are removed, and the
+ * pre-loaded tasks are restored after each iteration, so every iteration
+ * runs against the same data set.
+ * <p>
+ * Each operation is measured with the tasks stored in memory only, and with
+ * the tasks also persisted to a temporary directory using the write-behind
+ * {@link TaskFileStore}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ToDoListServiceBenchmark
+    {
+    @Param({"1000"})
+    public int taskCount;
+
+    @Param({"memory", "file"})
+    public String store;
+
+    private Path directory;
+
+    private ApplicationContext context;
+
+    private ToDoListService service;
+
+    private TaskRepository repository;
+
+    private List<String> ids;
+
+    private List<Task> preloaded;
+
+    @Setup
+    public void setup()
+        {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("coherence.cluster", "todo-benchmark");
+        properties.put("coherence.wka", "127.0.0.1");
+        properties.put("coherence.localhost", "127.0.0.1");
+        properties.put("coherence.ttl", "0");
+        properties.put("coherence.metrics.http.enabled", "false");
+        properties.put("coherence.tasks.store.type", store);
+        try
+            {
+            directory = Files.createTempDirectory("tasks-store");
+            }
+        catch (IOException e)
+            {
+            throw new UncheckedIOException(e);
+            }
+        properties.put("coherence.tasks.store.directory", directory.toString());
+
+        context    = ApplicationContext.run(properties);
+        service    = context.getBean(ToDoListService.class);
+        repository = context.getBean(TaskRepository.class);
+
+        List<String> descriptions = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++)
+            {
+            descriptions.add("Task " + i);
+            }
+
+        ids = new ArrayList<>(taskCount);
+        service.createTasks(null, descriptions).forEach(result -> ids.add(result.getId()));
+        service.updateCompletionStatus(ids.subList(0, taskCount / 2), true);
+
+        preloaded = new ArrayList<>(repository.getAll(ids));
+        }
+
+    @TearDown
+    public void tearDown()
+            throws IOException
+        {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory))
+            {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+
+    @TearDown(Level.Iteration)
+    public void restoreTasks()
+        {
+        repository.removeAll(equal(Task::getDescription, CREATED));
+        repository.saveAll(preloaded);
+        }
+
+    @Benchmark
+    public Task createTask()
+        {
+        return service.createTask(null, CREATED);
+        }
+
+    @Benchmark
+    public Task findTask()
+        {
+        return service.findTask(randomId());
+        }
+
+    @Benchmark
+    public Collection<Task> getAllTasks()
+        {
+        return service.getTasks(null, null);
+        }
+
+    @Benchmark
+    public Collection<Task> getCompletedTasks()
+        {
+        return service.getTasks(null, true);
+        }
+
+    @Benchmark
+    public Task updateCompletionStatus()
+        {
+        return service.updateCompletionStatus(randomId(), ThreadLocalRandom.current().nextBoolean());
+        }
+
+    @Benchmark
+    public Task updateDescription()
+        {
+        return service.updateDescription(randomId(), "Task " + ThreadLocalRandom.current().nextInt(taskCount));
+        }
+
+    @Benchmark
+    public void deleteCompletedTasks(CompletedTasks completedTasks)
+        {
+        service.deleteCompletedTasks(null);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    private String randomId()
+        {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+    // ---- inner class: CompletedTasks -------------------------------------
+
+    /**
+     * Creates the completed tasks removed by each invocation of
+     * {@link #deleteCompletedTasks(CompletedTasks)}.
+     */
+    @State(Scope.Thread)
+    public static class CompletedTasks
+        {
+        @Param({"100"})
+        public int completedCount;
+
+        private List<String> descriptions;
+
+        @Setup(Level.Invocation)
+        public void createCompletedTasks(ToDoListServiceBenchmark benchmark)
+            {
+            if (descriptions == null)
+                {
+                descriptions = new ArrayList<>(completedCount);
+                for (int i = 0; i < completedCount; i++)
+                    {
+                    descriptions.add(CREATED);
+                    }
+                }
+
+            List<String> ids = new ArrayList<>(completedCount);
+            benchmark.service.createTasks(null, descriptions).forEach(result -> ids.add(result.getId()));
+            benchmark.service.updateCompletionStatus(ids, true);
+            }
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The description of the tasks created during the benchmark.
+     */
+    private static final String CREATED = "Benchmark task";
+    }
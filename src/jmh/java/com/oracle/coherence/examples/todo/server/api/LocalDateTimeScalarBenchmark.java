@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import graphql.language.StringValue;
+
+import graphql.schema.Coercing;
+
+import java.time.LocalDateTime;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the {@link ToDoListGraphQlFactory#LOCAL_DATE_TIME
+ * LocalDateTime} GraphQL scalar coercing, which is performed for the
+ * {@code createdAtDate} field of every task returned by a query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocalDateTimeScalarBenchmark
+    {
+    private Coercing<?, ?> coercing;
+
+    private LocalDateTime dateTime;
+
+    private String string;
+
+    private StringValue literal;
+
+    @Setup
+    public void setup()
+        {
+        coercing = ToDoListGraphQlFactory.LOCAL_DATE_TIME.getCoercing();
+        dateTime = LocalDateTime.of(2021, 6, 15, 14, 30, 45);
+        string   = "2021-06-15T14:30:45";
+        literal  = StringValue.newStringValue(string).build();
+        }
+
+    @Benchmark
+    public Object serialize()
+        {
+        return coercing.serialize(dateTime);
+        }
+
+    @Benchmark
+    public Object parseValue()
+        {
+        return coercing.parseValue(string);
+        }
+
+    @Benchmark
+    public Object parseLiteral()
+        {
+        return coercing.parseLiteral(literal);
+        }
+    }
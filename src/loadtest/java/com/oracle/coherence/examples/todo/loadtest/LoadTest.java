@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.oracle.coherence.examples.todo.server.Application;
+
+import io.micronaut.context.ApplicationContext;
+
+import io.micronaut.runtime.Micronaut;
+import io.micronaut.runtime.server.EmbeddedServer;
+
+import java.io.PrintStream;
+
+import java.net.URI;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * An end-to-end HTTP load test for the To Do List server.
+ * <p>
+ * The load test pre-loads the configured number of tasks, opens the
+ * configured number of server-sent event subscriptions, and then performs
+ * a weighted mix of REST and GraphQL requests from the configured number
+ * of concurrent clients, each of which issues the next request as soon as
+ * the previous one completes. Once the warm-up period is over, the latency
+ * of each request is recorded in an HdrHistogram, and the latency
+ * percentiles and the throughput of each operation are reported at the end
+ * of the run.
+ * <p>
+ * Unless the {@code loadtest.url} property is specified, the server is
+ * started in-process, as a single-member Coherence cluster.
+ * <p>
+ * The load test is configured using the following system properties:
+ * <ul>
+ *   <li>{@code loadtest.url} - the base URL of an already running server</li>
+ *   <li>{@code loadtest.environments} - the comma-separated Micronaut
+ *       environments to start the in-process server with, such as
+ *       {@code virtual-threads}</li>
+ *   <li>{@code loadtest.tasks} - the number of tasks to pre-load (10000)</li>
+ *   <li>{@code loadtest.clients} - the number of concurrent clients (16)</li>
+ *   <li>{@code loadtest.subscribers} - the number of event subscribers (10)</li>
+ *   <li>{@code loadtest.warmup} - the warm-up period, in seconds (10)</li>
+ *   <li>{@code loadtest.duration} - the measurement period, in seconds (60)</li>
+ *   <li>{@code loadtest.page-size} - the number of tasks fetched by the page queries (100)</li>
+ *   <li>{@code loadtest.mix} - the operation weights
+ *       ({@code list=30,create=15,update=30,delete=10,stats=5,graphql=10})</li>
+ * </ul>
+ */
+public class LoadTest
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The HTTP client used by all clients and subscribers.
+     */
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * The JSON mapper used to read the created task ids.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * The latency recorders, keyed by operation.
+     */
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+    /**
+     * The number of failed requests, keyed by operation.
+     */
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    /**
+     * The number of operations that could not be performed, and were
+     * skipped, keyed by operation.
+     */
+    private final Map<Operation, AtomicLong> skipped = new EnumMap<>(Operation.class);
+
+    /**
+     * The number of server-sent events received by all subscribers.
+     */
+    private final AtomicLong eventCount = new AtomicLong();
+
+    /**
+     * The number of event subscriptions that have failed.
+     */
+    private final AtomicLong subscriberErrors = new AtomicLong();
+
+    /**
+     * The error that caused the last event subscription to fail.
+     */
+    private volatile String lastSubscriberError;
+
+    /**
+     * The flag specifying whether the load test is still running.
+     */
+    private volatile boolean running = true;
+
+    // ---- entry point -----------------------------------------------------
+
+    public static void main(String[] args)
+            throws Exception
+        {
+        String url = System.getProperty("loadtest.url");
+
+        ApplicationContext context = null;
+        URI                baseUri;
+        if (url == null || url.isEmpty())
+            {
+            context = startServer();
+            baseUri = context.getBean(EmbeddedServer.class).getURI();
+            }
+        else
+            {
+            baseUri = URI.create(url);
+            }
+
+        try
+            {
+            new LoadTest().run(baseUri, System.out);
+            }
+        finally
+            {
+            if (context != null)
+                {
+                context.close();
+                }
+            }
+        System.exit(0);
+        }
+
+    // ---- LoadTest methods ------------------------------------------------
+
+    /**
+     * Run the load test against the server with the specified base URI.
+     *
+     * @param baseUri  the base URI of the server under test
+     * @param out      the stream to write the report to
+     *
+     * @throws Exception if the load test fails
+     */
+    public void run(URI baseUri, PrintStream out)
+            throws Exception
+        {
+        int    taskCount   = Integer.getInteger("loadtest.tasks", 10_000);
+        int    clients     = Integer.getInteger("loadtest.clients", 16);
+        int    subscribers = Integer.getInteger("loadtest.subscribers", 10);
+        long   warmup      = Long.getLong("loadtest.warmup", 10);
+        long   duration    = Long.getLong("loadtest.duration", 60);
+        int    pageSize    = Integer.getInteger("loadtest.page-size", 100);
+        String mix         = System.getProperty("loadtest.mix", DEFAULT_MIX);
+
+        out.printf("Pre-loading %,d tasks into %s%n", taskCount, baseUri);
+        List<String> ids = preload(baseUri, taskCount, clients);
+
+        Workload workload = new Workload(baseUri, mix, ids, pageSize);
+        for (Operation operation : workload.getOperations())
+            {
+            recorders.put(operation, new Recorder(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+            skipped.put(operation, new AtomicLong());
+            }
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients + subscribers);
+        try
+            {
+            for (int i = 0; i < subscribers; i++)
+                {
+                executor.submit(() -> subscribe(baseUri));
+                }
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++)
+                {
+                futures.add(executor.submit(() -> runClient(workload)));
+                }
+
+            out.printf("Warming up for %d seconds with %d clients and %d subscribers%n", warmup, clients, subscribers);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+
+            // discard the latencies recorded during the warm-up
+            recorders.values().forEach(Recorder::reset);
+            errors.values().forEach(count -> count.set(0));
+            skipped.values().forEach(count -> count.set(0));
+            eventCount.set(0);
+
+            out.printf("Measuring for %d seconds%n", duration);
+            long start = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+
+            Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+            recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+            long events  = eventCount.get();
+            long elapsed = System.nanoTime() - start;
+
+            running = false;
+            for (Future<?> future : futures)
+                {
+                future.get();
+                }
+
+            report(out, histograms, events, elapsed);
+            }
+        finally
+            {
+            running = false;
+            executor.shutdownNow();
+            }
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Start the server in-process.
+     *
+     * @return the application context of the started server
+     */
+    private static ApplicationContext startServer()
+        {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("coherence.cluster", "todo-loadtest");
+        properties.put("coherence.wka", "127.0.0.1");
+        properties.put("coherence.localhost", "127.0.0.1");
+        properties.put("coherence.ttl", "0");
+
+        String environments = System.getProperty("loadtest.environments", "");
+
+        return Micronaut.build()
+                .mainClass(Application.class)
+                .environments(environments.isEmpty() ? new String[0] : environments.split(","))
+                .properties(properties)
+                .start();
+        }
+
+    /**
+     * Pre-load the specified number of tasks, half of which are completed,
+     * using the batch endpoint.
+     *
+     * @param baseUri    the base URI of the server under test
+     * @param taskCount  the number of tasks to pre-load
+     * @param clients    the number of concurrent clients to pre-load with
+     *
+     * @return the ids of the pre-loaded tasks
+     *
+     * @throws Exception if the tasks could not be pre-loaded
+     */
+    private List<String> preload(URI baseUri, int taskCount, int clients)
+            throws Exception
+        {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try
+            {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < taskCount; i += PRELOAD_BATCH_SIZE)
+                {
+                int first = i;
+                int count = Math.min(PRELOAD_BATCH_SIZE, taskCount - i);
+                futures.add(executor.submit(() -> preloadBatch(baseUri, first, count)));
+                }
+
+            List<String> ids = new ArrayList<>(taskCount);
+            for (Future<List<String>> future : futures)
+                {
+                ids.addAll(future.get());
+                }
+            return Collections.unmodifiableList(ids);
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+        }
+
+    private List<String> preloadBatch(URI baseUri, int first, int count)
+            throws Exception
+        {
+        StringBuilder create = new StringBuilder("{\"create\": [");
+        for (int i = 0; i < count; i++)
+            {
+            create.append(i == 0 ? "" : ", ").append("\"Pre-loaded task ").append(first + i).append('"');
+            }
+        create.append("]}");
+
+        List<String> ids = new ArrayList<>(count);
+        for (JsonNode result : send(batchRequest(baseUri, create.toString())).get("create"))
+            {
+            ids.add(result.get("id").asText());
+            }
+
+        StringBuilder complete = new StringBuilder("{\"complete\": [");
+        for (int i = 0; i < ids.size(); i += 2)
+            {
+            complete.append(i == 0 ? "" : ", ").append('"').append(ids.get(i)).append('"');
+            }
+        complete.append("]}");
+        send(batchRequest(baseUri, complete.toString()));
+
+        return ids;
+        }
+
+    private HttpRequest batchRequest(URI baseUri, String json)
+        {
+        return HttpRequest.newBuilder(baseUri.resolve("/api/tasks/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        }
+
+    private JsonNode send(HttpRequest request)
+            throws Exception
+        {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200)
+            {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode() + ": " + response.body());
+            }
+        return mapper.readTree(response.body());
+        }
+
+    /**
+     * Perform the operations from the specified workload until the load
+     * test is stopped, and record their latencies.
+     *
+     * @param workload  the workload to perform
+     */
+    private void runClient(Workload workload)
+        {
+        while (running)
+            {
+            Operation   operation = workload.nextOperation();
+            HttpRequest request   = operation.request(workload);
+            if (request == null)
+                {
+                // for example, a delete before any tasks have been created
+                skipped.get(operation).incrementAndGet();
+                continue;
+                }
+
+            long start = System.nanoTime();
+            try
+                {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+                if (response.statusCode() == 200)
+                    {
+                    recorders.get(operation).recordValue(Math.min(latency, MAX_LATENCY_MICROS));
+                    if (operation == Operation.CREATE)
+                        {
+                        workload.created(mapper.readTree(response.body()).get("id").asText());
+                        }
+                    }
+                else
+                    {
+                    errors.get(operation).incrementAndGet();
+                    }
+                }
+            catch (InterruptedException e)
+                {
+                return;
+                }
+            catch (Exception e)
+                {
+                errors.get(operation).incrementAndGet();
+                }
+            }
+        }
+
+    /**
+     * Subscribe to the server-sent task events, and count the received
+     * events until the load test is stopped.
+     * <p>
+     * The subscriptions that fail before the load test is stopped are
+     * counted, and reported together with the received events.
+     *
+     * @param baseUri  the base URI of the server under test
+     */
+    private void subscribe(URI baseUri)
+        {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/tasks/events"))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+
+        try
+            {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body())
+                {
+                if (response.statusCode() != 200)
+                    {
+                    subscriberFailed("HTTP status " + response.statusCode());
+                    return;
+                    }
+                lines.takeWhile(line -> running)
+                        .filter(line -> line.startsWith("event:"))
+                        .forEach(line -> eventCount.incrementAndGet());
+                }
+            }
+        catch (Exception e)
+            {
+            if (running)
+                {
+                subscriberFailed(e.toString());
+                }
+            }
+        }
+
+    /**
+     * Record the failure of an event subscription.
+     *
+     * @param error  the description of the error
+     */
+    private void subscriberFailed(String error)
+        {
+        lastSubscriberError = error;
+        subscriberErrors.incrementAndGet();
+        }
+
+    /**
+     * Write the latency percentiles and the throughput of each operation.
+     *
+     * @param out         the stream to write the report to
+     * @param histograms  the recorded latencies, keyed by operation
+     * @param events      the number of server-sent events received
+     * @param elapsed     the duration of the measurement, in nanoseconds
+     */
+    private void report(PrintStream out, Map<Operation, Histogram> histograms, long events, long elapsed)
+        {
+        double seconds = elapsed / 1e9;
+
+        out.println();
+        out.printf("%-10s %10s %10s %10s %10s %10s %10s %8s%n",
+                   "operation", "count", "ops/s", "p50 (ms)", "p99 (ms)", "p999 (ms)", "max (ms)", "errors");
+
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        histograms.forEach((operation, histogram) ->
+            {
+            total.add(histogram);
+            printRow(out, operation.getName(), histogram, seconds, errors.get(operation).get());
+            });
+        printRow(out, "total", total, seconds, errors.values().stream().mapToLong(AtomicLong::get).sum());
+
+        skipped.forEach((operation, count) ->
+            {
+            if (count.get() > 0)
+                {
+                out.printf("Skipped %,d %s operations that could not be performed, so the measured mix differs "
+                           + "from the configured one%n", count.get(), operation.getName());
+                }
+            });
+
+        out.println();
+        out.printf("Received %,d server-sent events (%,.1f events/s)%n", events, events / seconds);
+        if (subscriberErrors.get() > 0)
+            {
+            out.printf("%,d event subscriptions failed, the last one with: %s%n",
+                       subscriberErrors.get(), lastSubscriberError);
+            }
+        }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, double seconds, long errorCount)
+        {
+        out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                   name,
+                   histogram.getTotalCount(),
+                   histogram.getTotalCount() / seconds,
+                   histogram.getValueAtPercentile(50.0) / 1000.0,
+                   histogram.getValueAtPercentile(99.0) / 1000.0,
+                   histogram.getValueAtPercentile(99.9) / 1000.0,
+                   histogram.getMaxValue() / 1000.0,
+                   errorCount);
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The default operation weights.
+     */
+    private static final String DEFAULT_MIX = "list=30,create=15,update=30,delete=10,stats=5,graphql=10";
+
+    /**
+     * The number of tasks created by a single pre-load request.
+     */
+    private static final int PRELOAD_BATCH_SIZE = 1000;
+
+    /**
+     * The highest latency that can be recorded, in microseconds.
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    }
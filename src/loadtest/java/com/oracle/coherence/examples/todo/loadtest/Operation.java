@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.loadtest;
+
+import java.net.http.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The operations performed by the {@link LoadTest load test}.
+ */
+public enum Operation
+    {
+    /**
+     * Fetch a page of active tasks using {@code GET /api/tasks}.
+     */
+    LIST("list")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.get("/api/tasks?completed=false&limit=" + workload.pageSize());
+            }
+        },
+
+    /**
+     * Create a task using {@code POST /api/tasks}.
+     */
+    CREATE("create")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.post("/api/tasks", "{\"description\": \"Load test task\"}");
+            }
+        },
+
+    /**
+     * Update the completion status of a pre-loaded task using
+     * {@code PUT /api/tasks/{id}}.
+     */
+    UPDATE("update")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.put("/api/tasks/" + workload.randomId(),
+                                "{\"completed\": " + ThreadLocalRandom.current().nextBoolean() + "}");
+            }
+        },
+
+    /**
+     * Delete a task created by the {@link #CREATE} operation using
+     * {@code DELETE /api/tasks/{id}}.
+     */
+    DELETE("delete")
+        {
+        HttpRequest request(Workload workload)
+            {
+            String id = workload.createdId();
+            return id == null ? null : workload.delete("/api/tasks/" + id);
+            }
+        },
+
+    /**
+     * Stream all completed tasks using {@code GET /api/tasks/stream}, which
+     * blocks an IO executor thread for the duration of the request.
+     */
+    STREAM("stream")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.get("/api/tasks/stream?completed=true");
+            }
+        },
+
+    /**
+     * Fetch the task statistics using {@code GET /api/tasks/stats}.
+     */
+    STATS("stats")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.get("/api/tasks/stats");
+            }
+        },
+
+    /**
+     * Fetch a page of tasks using the {@code tasksPage} GraphQL query.
+     */
+    GRAPHQL("graphql")
+        {
+        HttpRequest request(Workload workload)
+            {
+            return workload.post("/graphql",
+                                 "{\"query\": \"{ tasksPage(first: " + workload.pageSize() + ") "
+                                 + "{ tasks { id description completed createdAtDate } endCursor hasNextPage } }\"}");
+            }
+        };
+
+    /**
+     * Construct {@link Operation} instance.
+     *
+     * @param name  the name of this operation within the workload mix
+     */
+    Operation(String name)
+        {
+        this.name = name;
+        }
+
+    /**
+     * Return the name of this operation within the workload mix.
+     *
+     * @return the name of this operation
+     */
+    public String getName()
+        {
+        return name;
+        }
+
+    /**
+     * Create the request for this operation.
+     *
+     * @param workload  the workload to create the request for
+     *
+     * @return the request for this operation, or {@code null} if the
+     *         operation cannot be performed at the moment
+     */
+    abstract HttpRequest request(Workload workload);
+
+    /**
+     * Return the operation with the specified name.
+     *
+     * @param name  the name of the operation
+     *
+     * @return the operation with the specified name
+     *
+     * @throws IllegalArgumentException if there is no such operation
+     */
+    public static Operation of(String name)
+        {
+        for (Operation operation : values())
+            {
+            if (operation.name.equals(name))
+                {
+                return operation;
+                }
+            }
+        throw new IllegalArgumentException("Unknown operation " + name);
+        }
+
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The name of this operation within the workload mix.
+     */
+    private final String name;
+    }
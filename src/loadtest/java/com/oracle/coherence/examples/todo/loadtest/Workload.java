@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.loadtest;
+
+import java.net.URI;
+
+import java.net.http.HttpRequest;
+
+import java.time.Duration;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The weighted mix of {@link Operation operations} performed by the
+ * {@link LoadTest load test}, together with the tasks they operate on.
+ */
+public class Workload
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The base URI of the server under test.
+     */
+    private final URI baseUri;
+
+    /**
+     * The operations in the mix.
+     */
+    private final Operation[] operations;
+
+    /**
+     * The cumulative weights of the operations in the mix.
+     */
+    private final int[] cumulativeWeights;
+
+    /**
+     * The ids of the pre-loaded tasks.
+     */
+    private final List<String> ids;
+
+    /**
+     * The number of tasks fetched by the page queries.
+     */
+    private final int pageSize;
+
+    /**
+     * The ids of the tasks created by the {@link Operation#CREATE} operation,
+     * which are removed by the {@link Operation#DELETE} operation, so the
+     * size of the data set remains stable.
+     */
+    private final Queue<String> createdIds = new ConcurrentLinkedQueue<>();
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct {@link Workload} instance.
+     *
+     * @param baseUri   the base URI of the server under test
+     * @param mix       the weights of the operations, in the
+     *                  {@code name=weight,name=weight} format
+     * @param ids       the ids of the pre-loaded tasks
+     * @param pageSize  the number of tasks fetched by the page queries
+     *
+     * @throws IllegalArgumentException if the mix is not valid
+     */
+    public Workload(URI baseUri, String mix, List<String> ids, int pageSize)
+        {
+        Map<Operation, Integer> weights = parseMix(mix);
+
+        this.baseUri           = baseUri;
+        this.operations        = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        this.ids               = ids;
+        this.pageSize          = pageSize;
+
+        int total = 0;
+        for (int i = 0; i < operations.length; i++)
+            {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+            }
+        }
+
+    // ---- Workload methods ------------------------------------------------
+
+    /**
+     * Return the operations in the mix.
+     *
+     * @return the operations in the mix
+     */
+    public Operation[] getOperations()
+        {
+        return operations.clone();
+        }
+
+    /**
+     * Choose the next operation to perform, based on the operation weights.
+     *
+     * @return the next operation to perform
+     */
+    public Operation nextOperation()
+        {
+        int n = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++)
+            {
+            if (n < cumulativeWeights[i])
+                {
+                return operations[i];
+                }
+            }
+        return operations[operations.length - 1];
+        }
+
+    /**
+     * Return the id of a random pre-loaded task.
+     *
+     * @return the id of a random pre-loaded task
+     */
+    String randomId()
+        {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+    /**
+     * Record the id of a task created by the {@link Operation#CREATE} operation.
+     *
+     * @param id  the id of the created task
+     */
+    void created(String id)
+        {
+        createdIds.add(id);
+        }
+
+    /**
+     * Return the id of a task created by the {@link Operation#CREATE}
+     * operation, which can be deleted.
+     *
+     * @return the id of a created task, or {@code null} if there are none
+     */
+    String createdId()
+        {
+        return createdIds.poll();
+        }
+
+    /**
+     * Return the number of tasks fetched by the page queries.
+     *
+     * @return the number of tasks fetched by the page queries
+     */
+    int pageSize()
+        {
+        return pageSize;
+        }
+
+    // ---- request helpers -------------------------------------------------
+
+    HttpRequest get(String path)
+        {
+        return builder(path).GET().build();
+        }
+
+    HttpRequest post(String path, String json)
+        {
+        return builder(path).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+    HttpRequest put(String path, String json)
+        {
+        return builder(path).PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+
+    HttpRequest delete(String path)
+        {
+        return builder(path).DELETE().build();
+        }
+
+    private HttpRequest.Builder builder(String path)
+        {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Parse the specified workload mix.
+     *
+     * @param mix  the weights of the operations, in the
+     *             {@code name=weight,name=weight} format
+     *
+     * @return the weights of the operations in the mix
+     *
+     * @throws IllegalArgumentException if the mix is not valid
+     */
+    static Map<Operation, Integer> parseMix(String mix)
+        {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(","))
+            {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2)
+                {
+                throw new IllegalArgumentException("Invalid workload mix entry " + entry);
+                }
+
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0)
+                {
+                weights.put(Operation.of(parts[0].trim()), weight);
+                }
+            }
+
+        if (weights.isEmpty())
+            {
+            throw new IllegalArgumentException("Workload mix " + mix + " contains no operations");
+            }
+        return weights;
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The timeout for a single request.
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    }
@@ -7,11 +7,24 @@
 
 package com.oracle.coherence.examples.todo.server;
 
+import com.oracle.coherence.examples.todo.server.api.TaskEvent;
+
+import io.micronaut.core.annotation.TypeHint;
+
 import io.micronaut.runtime.Micronaut;
 
 /**
  * {@code Micronaut} entry point.
+ * <p>
+ * The type hint registers the classes whose properties are read reflectively
+ * by the GraphQL property data fetchers and by Coherence serializers, so they
+ * are included in the reflection metadata of the native image.
  */
+@TypeHint(value = {Task.class, TaskPage.class, TaskResult.class, TaskStats.class,
+                   TaskStatsAggregator.class, TaskEvent.class},
+          accessType = {TypeHint.AccessType.ALL_PUBLIC_METHODS,
+                        TypeHint.AccessType.ALL_DECLARED_CONSTRUCTORS,
+                        TypeHint.AccessType.ALL_DECLARED_FIELDS})
 public class Application
     {
     public static void main(String[] args)
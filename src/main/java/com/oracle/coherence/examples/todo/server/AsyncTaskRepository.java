@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.util.Filter;
+
+import io.micronaut.coherence.data.AbstractCoherenceAsyncRepository;
+import io.micronaut.coherence.data.annotation.CoherenceRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@code Coherence}-base asynchronous {@code Micronaut Data} repository
+ * for working with {@link Task tasks}.
+ * <p>
+ * This repository provides the non-blocking equivalents of the
+ * {@link TaskRepository} operations, and uses the same entry processors
+ * and aggregators.
+ */
+@CoherenceRepository("tasks")
+public abstract class AsyncTaskRepository
+        extends AbstractCoherenceAsyncRepository<Task, String>
+    {
+    /**
+     * Return up to {@code limit} tasks that satisfy the specified filter,
+     * ordered by creation time and id.
+     *
+     * @param filter  the filter tasks have to satisfy
+     * @param limit   the maximum number of tasks to return
+     *
+     * @return a future that will complete with a list of up to {@code limit}
+     *         tasks in creation order
+     *
+     * @see TaskRepository#getFirst(Filter, int)
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<Task>> getFirst(Filter<?> filter, int limit)
+        {
+        return getMap().aggregate(filter, TaskRepository.firstAggregator(limit))
+                .thenApply(TaskRepository::toList);
+        }
+
+    /**
+     * Return the tasks with the specified ids, using a single bulk operation.
+     *
+     * @param ids  the ids of the tasks to return
+     *
+     * @return a future that will complete with a map of tasks, keyed by
+     *         task id; tasks that do not exist are not present in the map
+     */
+    public CompletableFuture<Map<String, Task>> getAllById(Collection<String> ids)
+        {
+        return getMap().getAll(ids);
+        }
+
+    /**
+     * Calculate {@link TaskStats statistics} for all tasks that satisfy the
+     * specified filter.
+     *
+     * @param filter  the filter tasks have to satisfy
+     *
+     * @return a future that will complete with the statistics for all tasks
+     *         that satisfy the specified filter
+     */
+    public CompletableFuture<TaskStats> getStats(Filter<?> filter)
+        {
+        return getMap().aggregate(filter, new TaskStatsAggregator());
+        }
+
+    /**
+     * Update the completion status of the tasks with the specified ids.
+     *
+     * @param ids        the ids of the tasks to update
+     * @param completed  the new completion status
+     *
+     * @return a future that will complete with a map of updated tasks,
+     *         keyed by task id; tasks that do not exist are not present
+     *         in the map
+     */
+    public CompletableFuture<Map<String, Task>> updateCompletionStatus(Collection<String> ids, boolean completed)
+        {
+        return getMap().invokeAll(ids, TaskRepository.completionUpdater(completed));
+        }
+
+    /**
+     * Update the completion status of all tasks that satisfy the specified
+     * filter.
+     * <p>
+     * All tasks are updated in parallel by the storage members, which only
+     * return the number of tasks each member has updated.
+     *
+     * @param filter     the filter tasks have to satisfy
+     * @param completed  the new completion status
+     *
+     * @return a future that will complete with the number of updated tasks
+     */
+    public CompletableFuture<Integer> updateCompletionStatus(Filter<?> filter, boolean completed)
+        {
+        return getMap().invokeAll(filter, new TaskCompletionProcessor(completed))
+                .thenApply(results -> results.values().stream().mapToInt(Integer::intValue).sum());
+        }
+
+    /**
+     * Remove the tasks with the specified ids.
+     *
+     * @param ids  the ids of the tasks to remove
+     *
+     * @return a future that will complete with a map of removed tasks, keyed
+     *         by task id; tasks that do not exist are not present in the map
+     */
+    public CompletableFuture<Map<String, Task>> removeTasks(Collection<String> ids)
+        {
+        return getMap().invokeAll(ids, TaskRepository.remover());
+        }
+    }
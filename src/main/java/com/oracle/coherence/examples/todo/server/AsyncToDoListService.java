@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2020, 2021, Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.util.Filter;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import static com.tangosol.util.Filters.always;
+import static com.tangosol.util.Filters.equal;
+import static com.tangosol.util.Filters.isTrue;
+
+/**
+ * Non-blocking To Do List API implementation that can be used by all API facades.
+ * <p>
+ * This service provides the same operations as the {@link ToDoListService},
+ * built on the asynchronous {@code Coherence} map API, so the calling thread
+ * is never blocked while waiting for the cluster to respond.
+ *
+ * @author Aleks Seovic
+ */
+@Singleton
+public class AsyncToDoListService
+    {
+    //----- constants -------------------------------------------------------
+
+    /**
+     * The name of the timer that records the latency of each operation,
+     * tagged with the operation name.
+     */
+    public static final String METRIC_NAME = "todo.service.async";
+
+    //----- data members ----------------------------------------------------
+
+    @Inject
+    protected AsyncTaskRepository tasks;
+
+    @Inject
+    protected TaskIdGenerator idGenerator;
+
+    @Inject
+    protected TaskArchive archive;
+
+    //----- ToDoListApi methods ---------------------------------------------
+
+    /**
+     * Create a {@link Task}.
+     *
+     * @param owner        optional name of the user the task belongs to
+     * @param description  task description
+     *
+     * @return a future that will complete with the created {@link Task}
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "createTask"}, histogram = true)
+    public CompletableFuture<Task> createTask(String owner, String description)
+        {
+        Objects.requireNonNull(description, "description is required");
+        Task task = new Task(idGenerator.generateId(), owner, description);
+        return tasks.save(task).thenApply(ignore -> task);
+        }
+
+    /**
+     * Create multiple {@link Task}s using a single bulk operation.
+     *
+     * @param owner         optional name of the user the tasks belong to
+     * @param descriptions  task descriptions
+     *
+     * @return a future that will complete with a list of {@link TaskResult}s
+     *         for the created {@link Task}s, in the same order as the
+     *         descriptions; the results for the missing descriptions are
+     *         failed
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "createTasks"}, histogram = true)
+    public CompletableFuture<List<TaskResult>> createTasks(String owner, Collection<String> descriptions)
+        {
+        Objects.requireNonNull(descriptions, "descriptions are required");
+        List<Task>       list    = new ArrayList<>(descriptions.size());
+        List<TaskResult> results = new ArrayList<>(descriptions.size());
+        for (String description : descriptions)
+            {
+            if (description == null)
+                {
+                // the other tasks in the batch are still created
+                results.add(TaskResult.failure(null, "description is required"));
+                }
+            else
+                {
+                Task task = new Task(idGenerator.generateId(), owner, description);
+                list.add(task);
+                results.add(TaskResult.success(task));
+                }
+            }
+
+        return tasks.saveAll(list).thenApply(ignore -> results);
+        }
+
+    /**
+     * Query {@link Task}s.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are returned if not specified
+     * @param completed  optionally specify completion status
+     *
+     * @return a future that will complete with a {@link Collection} of
+     *         {@link Task}s
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTasks"}, histogram = true)
+    public CompletableFuture<Collection<Task>> getTasks(String owner, Boolean completed)
+        {
+        return tasks.getAllOrderedBy(ToDoListService.ownerFilter(owner, ToDoListService.completedFilter(completed)),
+                                     Task::getCreatedAt);
+        }
+
+    /**
+     * Query a single page of {@link Task}s, ordered by creation time.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are returned if not specified
+     * @param completed  optionally specify completion status
+     * @param after      optional cursor of the last task from the previous page
+     * @param limit      the maximum number of tasks to return
+     *
+     * @return a future that will complete with a {@link TaskPage} containing
+     *         up to {@code limit} tasks created after the task the
+     *         {@code after} cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTasksPage"}, histogram = true)
+    public CompletableFuture<TaskPage> getTasks(String owner, Boolean completed, String after, int limit)
+        {
+        int          pageSize = ToDoListService.pageSize(limit);
+        Filter<Task> filter   = ToDoListService.ownerFilter(owner,
+                ToDoListService.pageFilter(ToDoListService.completedFilter(completed), after));
+
+        // fetch one task more than requested to determine if there is a next page
+        return tasks.getFirst(filter, pageSize + 1)
+                .thenApply(list -> ToDoListService.toPage(list, pageSize));
+        }
+
+    /**
+     * Search {@link Task}s by completion status, creation time and
+     * description.
+     *
+     * @param owner        optional name of the user the tasks belong to; the
+     *                     tasks of all users are searched if not specified
+     * @param completed    optionally specify completion status
+     * @param createdFrom  optional creation time (inclusive) in milliseconds
+     *                     since the epoch the tasks were created at or after
+     * @param createdTo    optional creation time (exclusive) in milliseconds
+     *                     since the epoch the tasks were created before
+     * @param text         optional text the task descriptions have to
+     *                     contain, ignoring case
+     *
+     * @return a future that will complete with a {@link Collection} of
+     *         {@link Task}s, ordered by creation time
+     *
+     * @see ToDoListService#searchTasks(String, Boolean, Long, Long, String)
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "searchTasks"}, histogram = true)
+    public CompletableFuture<Collection<Task>> searchTasks(String owner, Boolean completed, Long createdFrom,
+                                                           Long createdTo, String text)
+        {
+        Filter<Task> filter = ToDoListService.ownerFilter(owner,
+                ToDoListService.searchFilter(completed, createdFrom, createdTo, text));
+        return tasks.getAllOrderedBy(filter, Task::getCreatedAt);
+        }
+
+    /**
+     * Search a single page of {@link Task}s by completion status, creation
+     * time and description, ordered by creation time.
+     *
+     * @param owner        optional name of the user the tasks belong to; the
+     *                     tasks of all users are searched if not specified
+     * @param completed    optionally specify completion status
+     * @param createdFrom  optional creation time (inclusive) in milliseconds
+     *                     since the epoch the tasks were created at or after
+     * @param createdTo    optional creation time (exclusive) in milliseconds
+     *                     since the epoch the tasks were created before
+     * @param text         optional text the task descriptions have to
+     *                     contain, ignoring case
+     * @param after        optional cursor of the last task from the previous page
+     * @param limit        the maximum number of tasks to return
+     *
+     * @return a future that will complete with a {@link TaskPage} containing
+     *         up to {@code limit} matching tasks created after the task the
+     *         {@code after} cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "searchTasksPage"}, histogram = true)
+    public CompletableFuture<TaskPage> searchTasks(String owner, Boolean completed, Long createdFrom, Long createdTo,
+                                                   String text, String after, int limit)
+        {
+        int          pageSize = ToDoListService.pageSize(limit);
+        Filter<Task> filter   = ToDoListService.ownerFilter(owner, ToDoListService.pageFilter(
+                ToDoListService.searchFilter(completed, createdFrom, createdTo, text), after));
+
+        return tasks.getFirst(filter, pageSize + 1)
+                .thenApply(list -> ToDoListService.toPage(list, pageSize));
+        }
+
+    /**
+     * Calculate {@link TaskStats statistics} for all {@link Task}s.
+     *
+     * @param owner  optional name of the user the tasks belong to; the
+     *               statistics for the tasks of all users are calculated
+     *               if not specified
+     *
+     * @return a future that will complete with the {@link TaskStats} for
+     *         all {@link Task}s
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTaskStats"}, histogram = true)
+    public CompletableFuture<TaskStats> getTaskStats(String owner)
+        {
+        return tasks.getStats(ToDoListService.ownerFilter(owner, always()));
+        }
+
+    /**
+     * Search the archived {@link Task}s by completion time and description,
+     * ordered by completion time, starting with the most recently completed
+     * ones.
+     *
+     * @param owner          optional name of the user the tasks belong to;
+     *                       the archived tasks of all users are searched if
+     *                       not specified
+     * @param completedFrom  optional completion time (inclusive) in
+     *                       milliseconds since the epoch the tasks were
+     *                       completed at or after
+     * @param completedTo    optional completion time (exclusive) in
+     *                       milliseconds since the epoch the tasks were
+     *                       completed before
+     * @param text           optional text the task descriptions have to
+     *                       contain, ignoring case
+     * @param limit          the maximum number of tasks to return
+     *
+     * @return a future that will complete with a list of up to {@code limit}
+     *         matching archived tasks
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     *
+     * @see ToDoListService#getArchivedTasks(String, Long, Long, String, int)
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getArchivedTasks"}, histogram = true)
+    public CompletableFuture<List<Task>> getArchivedTasks(String owner, Long completedFrom, Long completedTo,
+                                                          String text, int limit)
+        {
+        return archive.getTasksAsync(ToDoListService.segmentFilter(owner, completedFrom, completedTo),
+                                     ToDoListService.archivedFilter(owner, completedFrom, completedTo, text),
+                                     ToDoListService.pageSize(limit));
+        }
+
+    /**
+     * Find a {@link Task}.
+     *
+     * @param id task id
+     *
+     * @return a future that will complete with the {@link Task} with the
+     *         given id, or complete exceptionally with a
+     *         {@link TaskNotFoundException} if the task was not found
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "findTask"}, histogram = true)
+    public CompletableFuture<Task> findTask(String id)
+        {
+        return tasks.get(id).thenApply(task -> orElseThrow(task, id));
+        }
+
+    /**
+     * Find multiple {@link Task}s using a single bulk operation.
+     *
+     * @param ids  the ids of the tasks to find
+     *
+     * @return a future that will complete with a map of found {@link Task}s,
+     *         keyed by task id; tasks that do not exist are not present in
+     *         the map
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "findTasks"}, histogram = true)
+    public CompletableFuture<Map<String, Task>> findTasks(Collection<String> ids)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return tasks.getAllById(ids);
+        }
+
+    /**
+     * Delete a {@link Task}.
+     *
+     * @param id task to delete
+     *
+     * @return a future that will complete with the deleted {@link Task}, or
+     *         complete exceptionally with a {@link TaskNotFoundException} if
+     *         the task was not found
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteTask"}, histogram = true)
+    public CompletableFuture<Task> deleteTask(String id)
+        {
+        return tasks.removeById(id, true).thenApply(task -> orElseThrow(task, id));
+        }
+
+    /**
+     * Remove all completed {@link Task}s.
+     *
+     * @param owner  optional name of the user the tasks belong to; the
+     *               completed tasks of all users are removed if not specified
+     *
+     * @return a future that will complete with whether any tasks have been
+     *         removed
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteCompletedTasks"}, histogram = true)
+    public CompletableFuture<Boolean> deleteCompletedTasks(String owner)
+        {
+        return tasks.removeAll(ToDoListService.ownerFilter(owner, isTrue(Task::getCompleted)));
+        }
+
+    /**
+     * Update a {@link Task} description.
+     *
+     * @param id           task to update
+     * @param description  new description
+     *
+     * @return a future that will complete with the updated {@link Task}, or
+     *         complete exceptionally with a {@link TaskNotFoundException} if
+     *         the task was not found
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateDescription"}, histogram = true)
+    public CompletableFuture<Task> updateDescription(String id, String description)
+        {
+        return tasks.update(id, Task::setDescription, description).thenApply(task -> orElseThrow(task, id));
+        }
+
+    /**
+     * Update a {@link Task} completion status.
+     *
+     * @param id         task to update
+     * @param completed  new completion status
+     *
+     * @return a future that will complete with the updated {@link Task}, or
+     *         complete exceptionally with a {@link TaskNotFoundException} if
+     *         the task was not found
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateCompletionStatus"}, histogram = true)
+    public CompletableFuture<Task> updateCompletionStatus(String id, boolean completed)
+        {
+        return tasks.update(id, Task::setCompleted, completed).thenApply(task -> orElseThrow(task, id));
+        }
+
+    /**
+     * Update completion status of multiple {@link Task}s using a single
+     * bulk operation.
+     *
+     * @param ids        tasks to update
+     * @param completed  new completion status
+     *
+     * @return a future that will complete with a list of {@link TaskResult}s,
+     *         in the same order as the ids
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateTasksCompletionStatus"}, histogram = true)
+    public CompletableFuture<List<TaskResult>> updateCompletionStatus(Collection<String> ids, boolean completed)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return tasks.updateCompletionStatus(ids, completed)
+                .thenApply(results -> ToDoListService.toResults(ids, results));
+        }
+
+    /**
+     * Update completion status of all {@link Task}s.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are updated if not specified
+     * @param completed  new completion status
+     *
+     * @return a future that will complete with the number of updated
+     *         {@link Task}s
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateAllCompletionStatus"}, histogram = true)
+    public CompletableFuture<Integer> updateAllCompletionStatus(String owner, boolean completed)
+        {
+        return tasks.updateCompletionStatus(ToDoListService.ownerFilter(owner, equal(Task::getCompleted, !completed)),
+                                            completed);
+        }
+
+    /**
+     * Delete multiple {@link Task}s using a single bulk operation.
+     *
+     * @param ids  tasks to delete
+     *
+     * @return a future that will complete with a list of {@link TaskResult}s,
+     *         in the same order as the ids
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteTasks"}, histogram = true)
+    public CompletableFuture<List<TaskResult>> deleteTasks(Collection<String> ids)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return tasks.removeTasks(ids).thenApply(results -> ToDoListService.toResults(ids, results));
+        }
+
+    //----- helpers ---------------------------------------------------------
+
+    /**
+     * Return the specified task, or throw a {@link TaskNotFoundException}
+     * if it is {@code null}.
+     *
+     * @param task  the task
+     * @param id    the id of the task
+     *
+     * @return the specified task
+     *
+     * @throws TaskNotFoundException if the task is {@code null}
+     */
+    private static Task orElseThrow(Task task, String id)
+        {
+        if (task == null)
+            {
+            throw new TaskNotFoundException(id);
+            }
+        return task;
+        }
+    }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import io.micronaut.context.annotation.Requires;
+
+import java.util.UUID;
+
+import javax.inject.Singleton;
+
+/**
+ * A {@link TaskIdGenerator} that generates short, random ids from the first
+ * six characters of a random {@link UUID}.
+ * <p>
+ * The ids are easy to read and type, but they only have 24 bits of entropy,
+ * so they are likely to collide once there are more than a few thousand
+ * tasks, and each id takes the lock of the shared {@code SecureRandom}.
+ * This generator should therefore only be used for demonstrations.
+ */
+@Singleton
+@Requires(property = TaskIdGenerator.PROPERTY, value = "random")
+public class RandomTaskIdGenerator
+        implements TaskIdGenerator
+    {
+    @Override
+    public String generateId()
+        {
+        return UUID.randomUUID().toString().substring(0, 6);
+        }
+    }
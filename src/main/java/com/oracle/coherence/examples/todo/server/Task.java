@@ -9,9 +9,18 @@ package com.oracle.coherence.examples.todo.server;
 
 import com.oracle.coherence.repository.Indexed;
 
+import com.tangosol.io.pof.EvolvablePortableObject;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+
+import com.tangosol.util.Binary;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.MappedEntity;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import java.time.Instant;
@@ -19,17 +28,23 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * A data class representing a single To Do List task.
+ * <p>
+ * This class supports both Java serialization and POF, so either can be
+ * selected using the {@code coherence.serializer} configuration property.
+ * The POF form is evolvable, so the members running an older version of
+ * this class preserve the attributes added by the newer versions, instead
+ * of discarding them when they update a task.
  *
  * @author Tim Middleton
  * @author Aleks Seovic
  */
 @MappedEntity
 public class Task
-        implements Serializable
+        implements Serializable, EvolvablePortableObject
     {
     // ---- data members ----------------------------------------------------
 
@@ -43,6 +58,11 @@ public class Task
      */
     private Boolean completed;
 
+    /**
+     * The completion time, or {@code 0} if the task is not completed.
+     */
+    private long completedAt;
+
     /**
      * The task ID.
      */
@@ -54,6 +74,23 @@ public class Task
      */
     private String description;
 
+    /**
+     * The name of the user the task belongs to, or {@code null} if the task
+     * does not belong to any user.
+     */
+    private String owner;
+
+    /**
+     * The version of the serialized form this task was deserialized from.
+     */
+    private transient int dataVersion;
+
+    /**
+     * The serialized attributes of a newer version of this class, which
+     * this version does not know about.
+     */
+    private transient Binary futureData;
+
     // ---- constructors ----------------------------------------------------
 
     /**
@@ -66,11 +103,32 @@ public class Task
     /**
      * Construct {@link Task} instance.
      *
+     * @param id           the task id, generated by a {@link TaskIdGenerator}
+     * @param description  task description
+     */
+    public Task(String id, String description)
+        {
+        this(id, null, description);
+        }
+
+    /**
+     * Construct {@link Task} instance that belongs to the specified user.
+     * <p>
+     * The id of the task that belongs to a user is prefixed with the user
+     * name, so the {@link TaskKeyAssociator} can associate all tasks of the
+     * same user with each other, and store them in the same partition.
+     *
+     * @param id           the task id, generated by a {@link TaskIdGenerator}
+     * @param owner        the name of the user the task belongs to, or
+     *                     {@code null} if the task does not belong to any user
      * @param description  task description
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
      */
-    public Task(String description)
+    public Task(String id, String owner, String description)
         {
-        this.id          = UUID.randomUUID().toString().substring(0, 6);
+        this.id          = owner == null ? id : validateOwner(owner) + OWNER_SEPARATOR + id;
+        this.owner       = owner;
         this.createdAt   = System.currentTimeMillis();
         this.description = description;
         this.completed   = false;
@@ -83,6 +141,7 @@ public class Task
      *
      * @return the creation time
      */
+    @Indexed(ordered = true)
     public long getCreatedAt()
         {
         return createdAt;
@@ -98,6 +157,18 @@ public class Task
         return id;
         }
 
+    /**
+     * Get the name of the user the task belongs to.
+     *
+     * @return the name of the user the task belongs to, or {@code null} if
+     *         the task does not belong to any user
+     */
+    @Indexed
+    public String getOwner()
+        {
+        return owner;
+        }
+
     /**
      * Get the task description.
      *
@@ -108,6 +179,19 @@ public class Task
         return description;
         }
 
+    /**
+     * Get the trigrams of the task description, which are indexed to
+     * support the text search.
+     *
+     * @return the trigrams of the task description
+     */
+    @Indexed
+    @JsonIgnore
+    public Set<String> getDescriptionTrigrams()
+        {
+        return Trigrams.of(description);
+        }
+
     /**
      * Set the task description.
      *
@@ -132,8 +216,22 @@ public class Task
         return completed;
         }
 
+    /**
+     * Get the completion time.
+     *
+     * @return the completion time, or {@code 0} if the task is not completed
+     */
+    @Indexed(ordered = true)
+    public long getCompletedAt()
+        {
+        return completedAt;
+        }
+
     /**
      * Sets the completion status.
+     * <p>
+     * The completion time is set when the task is completed, and is cleared
+     * when it is not completed anymore.
      *
      * @param completed  the completion status
      *
@@ -141,6 +239,14 @@ public class Task
      */
     public Task setCompleted(Boolean completed)
         {
+        if (!Boolean.TRUE.equals(completed))
+            {
+            completedAt = 0;
+            }
+        else if (!Boolean.TRUE.equals(this.completed))
+            {
+            completedAt = System.currentTimeMillis();
+            }
         this.completed = completed;
         return this;
         }
@@ -155,6 +261,115 @@ public class Task
         return LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneId.systemDefault());
         }
 
+    /**
+     * Returns the completion date as a {@link LocalDateTime}.
+     *
+     * @return the completion date as a {@link LocalDateTime}, or {@code null}
+     *         if the task is not completed
+     */
+    public LocalDateTime getCompletedAtDate()
+        {
+        return completedAt == 0
+               ? null
+               : LocalDateTime.ofInstant(Instant.ofEpochMilli(completedAt), ZoneId.systemDefault());
+        }
+
+    // ---- owner support ---------------------------------------------------
+
+    /**
+     * Return the name of the user the task with the specified id belongs to.
+     *
+     * @param id  the task id
+     *
+     * @return the name of the user the task belongs to, or {@code null} if
+     *         the task does not belong to any user
+     */
+    public static String ownerOf(String id)
+        {
+        int i = id.indexOf(OWNER_SEPARATOR);
+        return i < 0 ? null : id.substring(0, i);
+        }
+
+    /**
+     * Validate the specified user name.
+     *
+     * @param owner  the user name to validate
+     *
+     * @return the specified user name
+     *
+     * @throws IllegalArgumentException if the user name is empty or contains
+     *                                  the {@link #OWNER_SEPARATOR}
+     */
+    public static String validateOwner(String owner)
+        {
+        if (owner.isEmpty() || owner.indexOf(OWNER_SEPARATOR) >= 0)
+            {
+            throw new IllegalArgumentException("Invalid user name " + owner);
+            }
+        return owner;
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        createdAt   = in.readLong(CREATED_AT);
+        completed   = in.readObject(COMPLETED);
+        id          = in.readString(ID);
+        description = in.readString(DESCRIPTION);
+        owner       = in.readString(OWNER);
+        completedAt = in.readLong(COMPLETED_AT);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeLong(CREATED_AT, createdAt);
+        out.writeObject(COMPLETED, completed);
+        out.writeString(ID, id);
+        out.writeString(DESCRIPTION, description);
+        out.writeString(OWNER, owner);
+        out.writeLong(COMPLETED_AT, completedAt);
+        }
+
+    // ---- Evolvable interface --------------------------------------------
+
+    @Override
+    @JsonIgnore
+    public int getImplVersion()
+        {
+        return IMPL_VERSION;
+        }
+
+    @Override
+    @JsonIgnore
+    public int getDataVersion()
+        {
+        return dataVersion;
+        }
+
+    @Override
+    public void setDataVersion(int dataVersion)
+        {
+        this.dataVersion = dataVersion;
+        }
+
+    @Override
+    @JsonIgnore
+    public Binary getFutureData()
+        {
+        return futureData;
+        }
+
+    @Override
+    public void setFutureData(Binary futureData)
+        {
+        this.futureData = futureData;
+        }
+
     // ---- Object methods --------------------------------------------------
 
     @Override
@@ -170,15 +385,17 @@ public class Task
             }
         Task task = (Task) o;
         return createdAt == task.createdAt &&
+               completedAt == task.completedAt &&
                Objects.equals(completed, task.completed) &&
                id.equals(task.id) &&
-               description.equals(task.description);
+               description.equals(task.description) &&
+               Objects.equals(owner, task.owner);
         }
 
     @Override
     public int hashCode()
         {
-        return Objects.hash(createdAt, completed, id, description);
+        return Objects.hash(createdAt, completedAt, completed, id, description, owner);
         }
 
     @Override
@@ -186,9 +403,54 @@ public class Task
         {
         return "Task{"
                + "id=" + id
+               + ", owner=" + owner
                + ", description=" + description
                + ", completed=" + completed
                + ", createdAt=" + getCreatedAtDate()
+               + ", completedAt=" + getCompletedAtDate()
                + '}';
         }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The separator between the user name and the rest of the task id.
+     */
+    public static final char OWNER_SEPARATOR = ':';
+
+    /**
+     * The version of the serialized form written by this class; version 1
+     * added the completion time.
+     */
+    private static final int IMPL_VERSION = 1;
+
+    /**
+     * The POF index for the creation time.
+     */
+    private static final int CREATED_AT = 0;
+
+    /**
+     * The POF index for the completion status.
+     */
+    private static final int COMPLETED = 1;
+
+    /**
+     * The POF index for the task ID.
+     */
+    private static final int ID = 2;
+
+    /**
+     * The POF index for the task description.
+     */
+    private static final int DESCRIPTION = 3;
+
+    /**
+     * The POF index for the task owner.
+     */
+    private static final int OWNER = 4;
+
+    /**
+     * The POF index for the completion time.
+     */
+    private static final int COMPLETED_AT = 5;
     }
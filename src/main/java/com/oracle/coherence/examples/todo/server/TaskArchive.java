@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.NamedMap;
+
+import com.tangosol.util.Filter;
+import com.tangosol.util.Processors;
+
+import io.micronaut.coherence.annotation.Name;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import static com.tangosol.util.Filters.always;
+import static com.tangosol.util.Filters.less;
+
+/**
+ * The cold tier for the completed {@link Task tasks}, which are moved from
+ * the {@code tasks} cache by the {@link TaskArchiver} once they have been
+ * completed for long enough.
+ * <p>
+ * The archived tasks are stored in the compressed
+ * {@link TaskArchiveSegment segments}, one for each partition and day, so
+ * they take a fraction of the space the same tasks take in the
+ * {@code tasks} cache, and do not slow down the queries against it.
+ * The segments are decompressed and queried by the storage members in
+ * parallel, using the {@link TaskArchiveAggregator}, and only the top
+ * matching tasks from each member are returned.
+ */
+@Singleton
+public class TaskArchive
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The compressed segments, keyed by partition and day.
+     */
+    @Inject
+    @Name(CACHE_NAME)
+    private NamedMap<TaskArchiveKey, TaskArchiveSegment> segments;
+
+    // ---- lifecycle -------------------------------------------------------
+
+    /**
+     * Create the index used to find the segments by day.
+     */
+    @PostConstruct
+    void start()
+        {
+        segments.addIndex(TaskArchiveSegment::getDay, true, null);
+        }
+
+    // ---- archive operations ----------------------------------------------
+
+    /**
+     * Return up to {@code limit} archived tasks, ordered by completion time,
+     * starting with the most recently completed ones.
+     *
+     * @param segmentFilter  the filter the segments have to satisfy
+     * @param taskFilter     the filter the tasks within the segments have to
+     *                       satisfy
+     * @param limit          the maximum number of tasks to return
+     *
+     * @return a list of up to {@code limit} archived tasks
+     */
+    public List<Task> getTasks(Filter<?> segmentFilter, Filter<Task> taskFilter, int limit)
+        {
+        return segments.aggregate(segmentFilter, new TaskArchiveAggregator(taskFilter, limit));
+        }
+
+    /**
+     * Return up to {@code limit} archived tasks, ordered by completion time,
+     * starting with the most recently completed ones.
+     *
+     * @param segmentFilter  the filter the segments have to satisfy
+     * @param taskFilter     the filter the tasks within the segments have to
+     *                       satisfy
+     * @param limit          the maximum number of tasks to return
+     *
+     * @return a future that will complete with a list of up to {@code limit}
+     *         archived tasks
+     */
+    public CompletableFuture<List<Task>> getTasksAsync(Filter<?> segmentFilter, Filter<Task> taskFilter, int limit)
+        {
+        return segments.async().aggregate(segmentFilter, new TaskArchiveAggregator(taskFilter, limit));
+        }
+
+    /**
+     * Load the specified segments, unless the segments with the same keys
+     * already exist.
+     *
+     * @param entries  the segments to load
+     *
+     * @return the number of loaded segments
+     */
+    public int loadSegments(Map<TaskArchiveKey, TaskArchiveSegment> entries)
+        {
+        return TaskLoadProcessor.count(segments.invokeAll(entries.keySet(), new TaskLoadProcessor<>(entries)));
+        }
+
+    /**
+     * Delete the segments of the tasks completed before the specified day.
+     * <p>
+     * The segments are removed by the storage members in parallel, and are
+     * also erased from the store if the archive is persisted.
+     *
+     * @param day  the day the tasks have to be completed before to be
+     *             deleted, as the number of days since the epoch, in UTC
+     */
+    public void removeSegments(long day)
+        {
+        segments.invokeAll(less(TaskArchiveSegment::getDay, day), Processors.remove(always()));
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The name of the cache the segments are stored in.
+     */
+    public static final String CACHE_NAME = "tasks-archive";
+
+    /**
+     * The comparator that orders tasks by completion time, starting with the
+     * most recently completed ones, and by id.
+     */
+    static final Comparator<Task> COMPLETION_ORDER =
+            Comparator.comparingLong(Task::getCompletedAt).reversed().thenComparing(Task::getId);
+    }
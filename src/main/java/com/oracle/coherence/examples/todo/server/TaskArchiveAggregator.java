@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.Serializer;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.util.Filter;
+import com.tangosol.util.InvocableMap;
+import com.tangosol.util.Streamer;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A parallel aggregator that finds the most recently completed archived
+ * {@link Task tasks} that satisfy the specified filter.
+ * <p>
+ * Each storage member decompresses its {@link TaskArchiveSegment segments},
+ * starting with the most recent ones, and keeps only the top {@code limit}
+ * matching tasks. Once it has found enough tasks, it stops at the first
+ * segment that is older than the oldest task it has kept, so a query without
+ * an owner or a time range does not decompress the whole archive, and only
+ * up to {@code limit} tasks per member are sent to the caller, which merges
+ * them into the final result.
+ */
+public class TaskArchiveAggregator
+        implements InvocableMap.StreamingAggregator<TaskArchiveKey, TaskArchiveSegment, List<Task>, List<Task>>,
+                   Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The filter the tasks have to satisfy.
+     */
+    private Filter<Task> filter;
+
+    /**
+     * The maximum number of tasks to return.
+     */
+    private int limit;
+
+    /**
+     * The top {@code limit} tasks found by this aggregator.
+     */
+    private transient TreeSet<Task> tasks;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskArchiveAggregator()
+        {
+        }
+
+    /**
+     * Construct {@link TaskArchiveAggregator} instance.
+     *
+     * @param filter  the filter the tasks have to satisfy
+     * @param limit   the maximum number of tasks to return
+     */
+    public TaskArchiveAggregator(Filter<Task> filter, int limit)
+        {
+        this.filter = filter;
+        this.limit  = limit;
+        }
+
+    // ---- StreamingAggregator interface -----------------------------------
+
+    @Override
+    public InvocableMap.StreamingAggregator<TaskArchiveKey, TaskArchiveSegment, List<Task>, List<Task>> supply()
+        {
+        return new TaskArchiveAggregator(filter, limit);
+        }
+
+    @Override
+    public boolean accumulate(Streamer<? extends InvocableMap.Entry<? extends TaskArchiveKey, ? extends TaskArchiveSegment>> streamer)
+        {
+        List<InvocableMap.Entry<? extends TaskArchiveKey, ? extends TaskArchiveSegment>> entries = new ArrayList<>();
+        streamer.forEachRemaining(entries::add);
+        entries.sort(Comparator.comparingLong(entry -> -entry.getKey().getDay()));
+
+        for (InvocableMap.Entry<? extends TaskArchiveKey, ? extends TaskArchiveSegment> entry : entries)
+            {
+            if (!accumulate(entry))
+                {
+                break;
+                }
+            }
+        return true;
+        }
+
+    @Override
+    public boolean accumulate(InvocableMap.Entry<? extends TaskArchiveKey, ? extends TaskArchiveSegment> entry)
+        {
+        TreeSet<Task> tasks = ensureTasks();
+        if (tasks.size() >= limit
+            && (tasks.isEmpty() || entry.getKey().getDay() < TaskArchiveProcessor.dayOf(tasks.last())))
+            {
+            // the segments are accumulated starting with the most recent
+            // ones, so none of the remaining segments can contain a task
+            // completed after the oldest one we already have
+            return false;
+            }
+
+        Serializer serializer = entry.asBinaryEntry().getSerializer();
+        for (Task task : entry.getValue().getTasks(serializer))
+            {
+            if (filter.evaluate(task))
+                {
+                add(task);
+                }
+            }
+        return true;
+        }
+
+    @Override
+    public boolean combine(List<Task> partialResult)
+        {
+        partialResult.forEach(this::add);
+        return true;
+        }
+
+    @Override
+    public List<Task> getPartialResult()
+        {
+        return new ArrayList<>(ensureTasks());
+        }
+
+    @Override
+    public List<Task> finalizeResult()
+        {
+        return new ArrayList<>(ensureTasks());
+        }
+
+    @Override
+    public int characteristics()
+        {
+        return PARALLEL | PRESENT_ONLY;
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        filter = in.readObject(FILTER);
+        limit  = in.readInt(LIMIT);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeObject(FILTER, filter);
+        out.writeInt(LIMIT, limit);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Add the specified task, and evict the oldest task if there are more
+     * than {@code limit} tasks.
+     *
+     * @param task  the task to add
+     */
+    private void add(Task task)
+        {
+        TreeSet<Task> tasks = ensureTasks();
+        tasks.add(task);
+        if (tasks.size() > limit)
+            {
+            tasks.pollLast();
+            }
+        }
+
+    private TreeSet<Task> ensureTasks()
+        {
+        TreeSet<Task> tasks = this.tasks;
+        if (tasks == null)
+            {
+            tasks = this.tasks = new TreeSet<>(TaskArchive.COMPLETION_ORDER);
+            }
+        return tasks;
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the filter.
+     */
+    private static final int FILTER = 0;
+
+    /**
+     * The POF index for the limit.
+     */
+    private static final int LIMIT = 1;
+    }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.net.partition.PartitionAwareKey;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.util.Objects;
+
+/**
+ * The key of a {@link TaskArchiveSegment}, which contains the tasks from a
+ * single partition of the {@code tasks} cache that were completed on the
+ * same day.
+ * <p>
+ * The key is stored in the same partition of the {@code tasks-archive} cache
+ * as the tasks it contains were stored in the {@code tasks} cache, so the
+ * tasks can be moved to the archive atomically, and the archived tasks of a
+ * single user can be queried on a single storage member.
+ */
+public class TaskArchiveKey
+        implements PartitionAwareKey, Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The partition.
+     */
+    private int partition;
+
+    /**
+     * The day the tasks were completed on, as the number of days since the
+     * epoch, in UTC.
+     */
+    private long day;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskArchiveKey()
+        {
+        }
+
+    /**
+     * Construct {@link TaskArchiveKey} instance.
+     *
+     * @param partition  the partition
+     * @param day        the day the tasks were completed on
+     */
+    public TaskArchiveKey(int partition, long day)
+        {
+        this.partition = partition;
+        this.day       = day;
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Get the day the tasks were completed on.
+     *
+     * @return the day the tasks were completed on, as the number of days
+     *         since the epoch, in UTC
+     */
+    public long getDay()
+        {
+        return day;
+        }
+
+    // ---- PartitionAwareKey interface -------------------------------------
+
+    @Override
+    public int getPartitionId()
+        {
+        return partition;
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        partition = in.readInt(PARTITION);
+        day       = in.readLong(DAY);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeInt(PARTITION, partition);
+        out.writeLong(DAY, day);
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public boolean equals(Object o)
+        {
+        if (this == o)
+            {
+            return true;
+            }
+        if (o == null || getClass() != o.getClass())
+            {
+            return false;
+            }
+        TaskArchiveKey key = (TaskArchiveKey) o;
+        return partition == key.partition && day == key.day;
+        }
+
+    @Override
+    public int hashCode()
+        {
+        return Objects.hash(partition, day);
+        }
+
+    @Override
+    public String toString()
+        {
+        return "TaskArchiveKey{"
+               + "partition=" + partition
+               + ", day=" + day
+               + '}';
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the partition.
+     */
+    private static final int PARTITION = 0;
+
+    /**
+     * The POF index for the day.
+     */
+    private static final int DAY = 1;
+    }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.Serializer;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.net.BackingMapContext;
+import com.tangosol.net.BackingMapManagerContext;
+
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.InvocableMap;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An entry processor that moves the {@link Task tasks} completed before the
+ * specified time from the {@code tasks} cache to the compressed
+ * {@link TaskArchiveSegment segments} within the {@code tasks-archive} cache.
+ * <p>
+ * The tasks are grouped by partition and by the day they were completed on,
+ * and each group is added to the segment for that partition and day, which
+ * is stored in the same partition of the {@code tasks-archive} cache. Both
+ * the removal of the tasks and the update of the segments are therefore
+ * committed atomically, as a single partition-level transaction, so the
+ * tasks are never lost or duplicated, even if the storage members fail.
+ * <p>
+ * Instead of returning a result for each archived task, the processor
+ * returns a single result for each invocation, with the number of tasks it
+ * has archived.
+ */
+public class TaskArchiveProcessor
+        implements InvocableMap.EntryProcessor<String, Task, Integer>, Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The time the tasks have to be completed before to be archived.
+     */
+    private long completedBefore;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskArchiveProcessor()
+        {
+        }
+
+    /**
+     * Construct {@link TaskArchiveProcessor} instance.
+     *
+     * @param completedBefore  the time in milliseconds since the epoch the
+     *                         tasks have to be completed before to be archived
+     */
+    public TaskArchiveProcessor(long completedBefore)
+        {
+        this.completedBefore = completedBefore;
+        }
+
+    // ---- EntryProcessor interface ----------------------------------------
+
+    @Override
+    public Integer process(InvocableMap.Entry<String, Task> entry)
+        {
+        return processAll(Collections.singleton(entry)).getOrDefault(entry.getKey(), 0);
+        }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Integer> processAll(Set<? extends InvocableMap.Entry<String, Task>> entries)
+        {
+        Map<TaskArchiveKey, List<BinaryEntry<String, Task>>> segments = new HashMap<>();
+        for (InvocableMap.Entry<String, Task> entry : entries)
+            {
+            Task task = entry.isPresent() ? entry.getValue() : null;
+            if (task != null && Boolean.TRUE.equals(task.getCompleted()) && task.getCompletedAt() < completedBefore)
+                {
+                BinaryEntry<String, Task> binEntry  = entry.asBinaryEntry();
+                int                       partition = binEntry.getContext().getKeyPartition(binEntry.getBinaryKey());
+
+                segments.computeIfAbsent(new TaskArchiveKey(partition, dayOf(task)), k -> new ArrayList<>())
+                        .add(binEntry);
+                }
+            }
+
+        String lastKey = null;
+        int    count   = 0;
+        for (Map.Entry<TaskArchiveKey, List<BinaryEntry<String, Task>>> group : segments.entrySet())
+            {
+            TaskArchiveKey                  key        = group.getKey();
+            List<BinaryEntry<String, Task>> list       = group.getValue();
+            BackingMapManagerContext        ctx        = list.get(0).getContext();
+            Serializer                      serializer = list.get(0).getSerializer();
+            BackingMapContext               archive    = ctx.getBackingMapContext(TaskArchive.CACHE_NAME);
+
+            InvocableMap.Entry<Object, TaskArchiveSegment> segment =
+                    archive.getBackingMapEntry(ctx.getKeyToInternalConverter().convert(key));
+
+            List<Task> tasks = new ArrayList<>(list.size());
+            for (BinaryEntry<String, Task> entry : list)
+                {
+                tasks.add(entry.getValue());
+                entry.remove(false);
+                lastKey = entry.getKey();
+                count++;
+                }
+
+            segment.setValue(segment.isPresent()
+                             ? segment.getValue().add(tasks, serializer)
+                             : TaskArchiveSegment.of(key.getDay(), tasks, serializer));
+            }
+        return lastKey == null ? Collections.emptyMap() : Collections.singletonMap(lastKey, count);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Return the day the specified task was completed on.
+     *
+     * @param task  the completed task
+     *
+     * @return the day the task was completed on, as the number of days since
+     *         the epoch, in UTC
+     */
+    static long dayOf(Task task)
+        {
+        return Math.floorDiv(task.getCompletedAt(), MILLIS_PER_DAY);
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        completedBefore = in.readLong(COMPLETED_BEFORE);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeLong(COMPLETED_BEFORE, completedBefore);
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * The POF index for the completion time the tasks are archived before.
+     */
+    private static final int COMPLETED_BEFORE = 0;
+    }
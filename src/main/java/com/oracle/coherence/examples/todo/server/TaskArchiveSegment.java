@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.Serializer;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.util.ExternalizableHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compressed segment of the archived {@link Task tasks}, which contains
+ * the tasks from a single partition that were completed on the same day.
+ * <p>
+ * The tasks are serialized using the serializer of the cache service and
+ * compressed together, which takes considerably less space than storing
+ * them individually, as the tasks within the segment share most of their
+ * structure. The tasks are therefore only decompressed by the storage
+ * members, when the archive is queried.
+ */
+public class TaskArchiveSegment
+        implements Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The day the tasks were completed on, as the number of days since the
+     * epoch, in UTC.
+     */
+    private long day;
+
+    /**
+     * The number of tasks within this segment.
+     */
+    private int count;
+
+    /**
+     * The compressed tasks.
+     */
+    private byte[] data;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskArchiveSegment()
+        {
+        }
+
+    /**
+     * Construct {@link TaskArchiveSegment} instance.
+     *
+     * @param day    the day the tasks were completed on
+     * @param count  the number of tasks
+     * @param data   the compressed tasks
+     */
+    private TaskArchiveSegment(long day, int count, byte[] data)
+        {
+        this.day   = day;
+        this.count = count;
+        this.data  = data;
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Get the day the tasks were completed on.
+     *
+     * @return the day the tasks were completed on, as the number of days
+     *         since the epoch, in UTC
+     */
+    public long getDay()
+        {
+        return day;
+        }
+
+    /**
+     * Get the number of tasks within this segment.
+     *
+     * @return the number of tasks within this segment
+     */
+    public int getCount()
+        {
+        return count;
+        }
+
+    /**
+     * Get the size of the compressed tasks.
+     *
+     * @return the size of the compressed tasks in bytes
+     */
+    public int getSize()
+        {
+        return data.length;
+        }
+
+    // ---- segment support -------------------------------------------------
+
+    /**
+     * Create a segment that contains the specified tasks.
+     *
+     * @param day         the day the tasks were completed on
+     * @param tasks       the tasks
+     * @param serializer  the serializer to serialize the tasks with
+     *
+     * @return a segment that contains the specified tasks
+     */
+    public static TaskArchiveSegment of(long day, Collection<Task> tasks, Serializer serializer)
+        {
+        return new TaskArchiveSegment(day, tasks.size(), compress(tasks.toArray(new Task[0]), serializer));
+        }
+
+    /**
+     * Return the tasks within this segment.
+     *
+     * @param serializer  the serializer the tasks were serialized with
+     *
+     * @return the tasks within this segment
+     */
+    public List<Task> getTasks(Serializer serializer)
+        {
+        Object[] aoTask = ExternalizableHelper.fromByteArray(decompress(data), serializer);
+        List<Task> list = new ArrayList<>(aoTask.length);
+        for (Object o : aoTask)
+            {
+            list.add((Task) o);
+            }
+        return list;
+        }
+
+    /**
+     * Create a segment that contains both the tasks within this segment and
+     * the specified tasks.
+     *
+     * @param tasks       the tasks to add
+     * @param serializer  the serializer to serialize the tasks with
+     *
+     * @return a segment that contains the tasks within this segment and the
+     *         specified tasks
+     */
+    public TaskArchiveSegment add(Collection<Task> tasks, Serializer serializer)
+        {
+        List<Task> list = getTasks(serializer);
+        list.addAll(tasks);
+        return of(day, list, serializer);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Serialize and compress the specified tasks.
+     *
+     * @param aTask       the tasks
+     * @param serializer  the serializer to serialize the tasks with
+     *
+     * @return the compressed tasks
+     */
+    private static byte[] compress(Task[] aTask, Serializer serializer)
+        {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try
+            {
+            deflater.setInput(ExternalizableHelper.toByteArray(aTask, serializer));
+            deflater.finish();
+
+            ByteArrayOutputStream out    = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[8192];
+            while (!deflater.finished())
+                {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            return out.toByteArray();
+            }
+        finally
+            {
+            deflater.end();
+            }
+        }
+
+    /**
+     * Decompress the specified data.
+     *
+     * @param data  the compressed data
+     *
+     * @return the decompressed data
+     */
+    private static byte[] decompress(byte[] data)
+        {
+        Inflater inflater = new Inflater();
+        try
+            {
+            inflater.setInput(data);
+
+            ByteArrayOutputStream out    = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[8192];
+            while (!inflater.finished())
+                {
+                int cb = inflater.inflate(buffer);
+                if (cb == 0 && inflater.needsInput())
+                    {
+                    throw new UncheckedIOException(new IOException("Truncated archive segment"));
+                    }
+                out.write(buffer, 0, cb);
+                }
+            return out.toByteArray();
+            }
+        catch (DataFormatException e)
+            {
+            throw new UncheckedIOException(new IOException(e));
+            }
+        finally
+            {
+            inflater.end();
+            }
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        day   = in.readLong(DAY);
+        count = in.readInt(COUNT);
+        data  = in.readByteArray(DATA);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeLong(DAY, day);
+        out.writeInt(COUNT, count);
+        out.writeByteArray(DATA, data);
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public boolean equals(Object o)
+        {
+        if (this == o)
+            {
+            return true;
+            }
+        if (o == null || getClass() != o.getClass())
+            {
+            return false;
+            }
+        TaskArchiveSegment segment = (TaskArchiveSegment) o;
+        return day == segment.day && count == segment.count && Arrays.equals(data, segment.data);
+        }
+
+    @Override
+    public int hashCode()
+        {
+        return 31 * Long.hashCode(day) + Arrays.hashCode(data);
+        }
+
+    @Override
+    public String toString()
+        {
+        return "TaskArchiveSegment{"
+               + "day=" + day
+               + ", count=" + count
+               + ", size=" + data.length
+               + '}';
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the day.
+     */
+    private static final int DAY = 0;
+
+    /**
+     * The POF index for the number of tasks.
+     */
+    private static final int COUNT = 1;
+
+    /**
+     * The POF index for the compressed tasks.
+     */
+    private static final int DATA = 2;
+    }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.Member;
+import com.tangosol.net.PartitionedService;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+import io.micronaut.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Periodically moves the {@link Task tasks} that have been completed for
+ * longer than the configured age from the {@code tasks} cache to the
+ * {@link TaskArchive}, which keeps the working set in the {@code tasks}
+ * cache small even if the completed tasks are never deleted.
+ * <p>
+ * The archived tasks are deleted once they have been completed for longer
+ * than the configured retention period.
+ * <p>
+ * The tasks are archived by the storage members in parallel, so only the
+ * senior member of the service triggers the archival.
+ * <p>
+ * The archived tasks are no longer returned by the task queries and
+ * statistics, and are not removed by {@code deleteCompletedTasks}, so the
+ * archiver is only enabled if the {@code todo.archive.enabled} property is
+ * set to {@code true}.
+ */
+@Singleton
+@Requires(property = "todo.archive.enabled", value = "true")
+public class TaskArchiver
+    {
+    // ---- data members ----------------------------------------------------
+
+    @Inject
+    private TaskRepository tasks;
+
+    /**
+     * The archive the tasks are moved to, injected to ensure the archive
+     * cache exists before the tasks are moved to it.
+     */
+    @Inject
+    private TaskArchive archive;
+
+    /**
+     * How long the tasks have to be completed for before they are archived.
+     */
+    @Value("${todo.archive.max-age:7d}")
+    private Duration maxAge;
+
+    /**
+     * How long the archived tasks are kept for before they are deleted, or
+     * zero to keep them forever.
+     */
+    @Value("${todo.archive.retention:365d}")
+    private Duration retention;
+
+    // ---- archiver operations ---------------------------------------------
+
+    /**
+     * Move the tasks that have been completed for longer than the configured
+     * age to the archive, and delete the archived tasks that have been
+     * completed for longer than the configured retention period, if this
+     * member is the senior member of the service.
+     */
+    @Scheduled(fixedDelay = "${todo.archive.interval:1h}", initialDelay = "${todo.archive.interval:1h}")
+    public void archiveCompletedTasks()
+        {
+        PartitionedService service = tasks.getPartitionedService();
+        Member             senior  = service.getInfo().getOldestMember();
+        if (senior == null || !senior.equals(service.getCluster().getLocalMember()))
+            {
+            return;
+            }
+        long now = System.currentTimeMillis();
+        tasks.archiveCompletedTasks(now - maxAge.toMillis());
+        if (!retention.isZero())
+            {
+            // only the whole days are deleted, so the archived tasks are
+            // kept for up to a day longer than the retention period
+            archive.removeSegments(Math.floorDiv(now - retention.toMillis(), TaskArchiveProcessor.MILLIS_PER_DAY));
+            }
+        }
+    }
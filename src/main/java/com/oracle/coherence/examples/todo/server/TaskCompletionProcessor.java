@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.util.InvocableMap;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An entry processor that sets the completion status of the {@link Task
+ * tasks} in place.
+ * <p>
+ * Instead of returning the updated tasks, the processor counts them on the
+ * storage member, and returns a single result for each invocation, keyed by
+ * one of the updated task ids, so the caller only has to sum up the results.
+ */
+public class TaskCompletionProcessor
+        implements InvocableMap.EntryProcessor<String, Task, Integer>, Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The new completion status.
+     */
+    private boolean completed;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskCompletionProcessor()
+        {
+        }
+
+    /**
+     * Construct {@link TaskCompletionProcessor} instance.
+     *
+     * @param completed  the new completion status
+     */
+    public TaskCompletionProcessor(boolean completed)
+        {
+        this.completed = completed;
+        }
+
+    // ---- EntryProcessor interface ----------------------------------------
+
+    @Override
+    public Integer process(InvocableMap.Entry<String, Task> entry)
+        {
+        if (!entry.isPresent() || Boolean.valueOf(completed).equals(entry.getValue().getCompleted()))
+            {
+            return 0;
+            }
+        entry.setValue(entry.getValue().setCompleted(completed));
+        return 1;
+        }
+
+    @Override
+    public Map<String, Integer> processAll(Set<? extends InvocableMap.Entry<String, Task>> set)
+        {
+        String key   = null;
+        int    count = 0;
+        for (InvocableMap.Entry<String, Task> entry : set)
+            {
+            if (process(entry) > 0)
+                {
+                key = entry.getKey();
+                count++;
+                }
+            }
+        return key == null ? Collections.emptyMap() : Collections.singletonMap(key, count);
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        completed = in.readBoolean(COMPLETED);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeBoolean(COMPLETED, completed);
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the completion status.
+     */
+    private static final int COMPLETED = 0;
+    }
@@ -0,0 +1,778 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.Serializer;
+
+import com.tangosol.net.BackingMapManagerContext;
+import com.tangosol.net.PartitionedService;
+
+import com.tangosol.net.cache.CacheStore;
+
+import com.tangosol.net.partition.PartitionEvent;
+import com.tangosol.net.partition.PartitionListener;
+import com.tangosol.net.partition.PartitionSet;
+
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+import com.tangosol.util.ServiceEvent;
+import com.tangosol.util.ServiceListener;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link CacheStore} that persists the {@link Task tasks}, or the
+ * {@link TaskArchiveSegment archived tasks}, to append-only files within a
+ * local or shared directory.
+ * <p>
+ * The store is meant to be used with a write-behind read-write backing map,
+ * which coalesces the changes to the same task and passes them to the store
+ * in batches, so each batch is written to each partition file using a single
+ * write, followed by a single {@code fsync}, on a background thread, without
+ * adding any latency to the requests that changed the tasks.
+ * <p>
+ * Each record consists of the serialized key and value, or of the key only
+ * if the entry was removed. The files of each partition are numbered by
+ * generation, and each member that becomes the owner of a partition starts
+ * a new generation, so no file is ever written by more than one member, and
+ * the previous owner can still finish writing the changes it has already
+ * started writing. The last record for each key within the newest
+ * generation therefore represents the current state of that entry, and the
+ * files can be read back using {@link #read(List, Serializer)}.
+ * <p>
+ * Once the file of the current generation grows past the compaction
+ * threshold, it is merged with the older generations that are no longer
+ * written to into a new generation, which only contains the latest record
+ * for each key, and the merged files are deleted.
+ * <p>
+ * The store does not support loading individual entries, so the entries
+ * have to be loaded in bulk on startup by the {@link TaskPreloader}.
+ *
+ * @param <K>  the type of the keys
+ * @param <V>  the type of the values
+ */
+public class TaskFileStore<K, V>
+        implements CacheStore<K, V>
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The directory the partition files are stored in.
+     */
+    private final Path directory;
+
+    /**
+     * The context used to determine the partition of each entry.
+     */
+    private final BackingMapManagerContext context;
+
+    /**
+     * The service the entries are stored in.
+     */
+    private final PartitionedService service;
+
+    /**
+     * The serializer used to serialize the entries.
+     */
+    private final Serializer serializer;
+
+    /**
+     * The size the file of the current generation has to grow past to be
+     * compacted.
+     */
+    private final long compactThreshold;
+
+    /**
+     * The files this member writes to, keyed by partition.
+     */
+    private final Map<Integer, PartitionFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * The listener that closes the files when the partitions are moved away
+     * from this member, or when the service stops.
+     */
+    private final Listener listener = new Listener();
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct {@link TaskFileStore} instance.
+     *
+     * @param directory         the directory to store the partition files in
+     * @param context           the context of the backing map manager
+     * @param compactThreshold  the size in bytes the file of the current
+     *                          generation has to grow past to be compacted
+     *
+     * @throws UncheckedIOException if the directory could not be created
+     */
+    public TaskFileStore(String directory, BackingMapManagerContext context, long compactThreshold)
+        {
+        this.directory        = Paths.get(directory);
+        this.context          = context;
+        this.service          = (PartitionedService) context.getCacheService();
+        this.serializer       = service.getSerializer();
+        this.compactThreshold = compactThreshold;
+
+        try
+            {
+            Files.createDirectories(this.directory);
+            }
+        catch (IOException e)
+            {
+            throw new UncheckedIOException(e);
+            }
+
+        service.addPartitionListener(listener);
+        service.addServiceListener(listener);
+        }
+
+    // ---- CacheStore interface --------------------------------------------
+
+    @Override
+    public V load(K key)
+        {
+        return null;
+        }
+
+    @Override
+    public Map<K, V> loadAll(Collection<? extends K> keys)
+        {
+        return Collections.emptyMap();
+        }
+
+    @Override
+    public void store(K key, V value)
+        {
+        storeAll(Collections.singletonMap(key, value));
+        }
+
+    @Override
+    public void storeAll(Map<? extends K, ? extends V> entries)
+        {
+        Map<Integer, List<Binary>> records = new HashMap<>();
+        entries.forEach((key, value) -> records.computeIfAbsent(context.getKeyPartition(key), p -> new ArrayList<>())
+                .add(record(key, value)));
+        write(records);
+        }
+
+    @Override
+    public void erase(K key)
+        {
+        eraseAll(Collections.singleton(key));
+        }
+
+    @Override
+    public void eraseAll(Collection<? extends K> keys)
+        {
+        Map<Integer, List<Binary>> records = new HashMap<>();
+        keys.forEach(key -> records.computeIfAbsent(context.getKeyPartition(key), p -> new ArrayList<>())
+                .add(record(key, null)));
+        write(records);
+        }
+
+    // ---- file support ----------------------------------------------------
+
+    /**
+     * Return the partition files within the specified directory, ordered by
+     * generation.
+     *
+     * @param dir  the directory the partition files are stored in
+     *
+     * @return the partition files within the specified directory, keyed by
+     *         partition, or an empty map if the directory does not exist
+     *
+     * @throws UncheckedIOException if the directory could not be read
+     */
+    public static Map<Integer, List<Path>> partitionFiles(Path dir)
+        {
+        if (!Files.isDirectory(dir))
+            {
+            return Collections.emptyMap();
+            }
+        try (Stream<Path> files = Files.list(dir))
+            {
+            return files
+                    .filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(TaskFileStore::generationOf))
+                    .collect(Collectors.groupingBy(TaskFileStore::partitionOf, TreeMap::new, Collectors.toList()));
+            }
+        catch (IOException e)
+            {
+            throw new UncheckedIOException(e);
+            }
+        }
+
+    /**
+     * Read the current state of the entries from the specified files of a
+     * single partition.
+     *
+     * @param files       the files of a single partition, ordered by generation
+     * @param serializer  the serializer the entries were serialized with
+     * @param <K>         the type of the keys
+     * @param <V>         the type of the values
+     *
+     * @return the entries that were not removed
+     *
+     * @throws IOException if the files could not be read
+     */
+    public static <K, V> Map<K, V> read(List<Path> files, Serializer serializer)
+            throws IOException
+        {
+        Map<K, V> entries = new LinkedHashMap<>();
+        for (Map.Entry<Binary, Binary> entry : merge(files).entrySet())
+            {
+            if (entry.getValue() != null)
+                {
+                entries.put(ExternalizableHelper.fromBinary(entry.getKey(), serializer),
+                            ExternalizableHelper.fromBinary(entry.getValue(), serializer));
+                }
+            }
+        return entries;
+        }
+
+    /**
+     * Return the name of the file for the specified partition and generation.
+     *
+     * @param partition   the partition
+     * @param generation  the generation
+     *
+     * @return the name of the file for the specified partition and generation
+     */
+    public static String fileName(int partition, long generation)
+        {
+        return FILE_PREFIX + partition + '-' + generation + FILE_SUFFIX;
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Create a record for the specified entry.
+     *
+     * @param key    the key
+     * @param value  the value, or {@code null} if the entry was removed
+     *
+     * @return the serialized record
+     */
+    private Binary record(K key, V value)
+        {
+        return record(ExternalizableHelper.toBinary(key, serializer),
+                      value == null ? null : ExternalizableHelper.toBinary(value, serializer));
+        }
+
+    /**
+     * Create a record for the specified serialized entry.
+     *
+     * @param binKey    the serialized key
+     * @param binValue  the serialized value, or {@code null} if the entry
+     *                  was removed
+     *
+     * @return the serialized record
+     */
+    private static Binary record(Binary binKey, Binary binValue)
+        {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + binKey.length() + (binValue == null ? 0 : binValue.length()));
+        buffer.putInt(binKey.length()).put(binKey.toByteArray());
+        if (binValue == null)
+            {
+            buffer.putInt(-1);
+            }
+        else
+            {
+            buffer.putInt(binValue.length()).put(binValue.toByteArray());
+            }
+        return new Binary(buffer.array());
+        }
+
+    /**
+     * Append the specified records to their partition files, and force them
+     * to the storage device.
+     *
+     * @param records  the records to write, keyed by partition
+     *
+     * @throws UncheckedIOException if the records could not be written; the
+     *                              read-write backing map requeues the failed
+     *                              changes as long as the write requeue
+     *                              threshold is not exceeded
+     */
+    private void write(Map<Integer, List<Binary>> records)
+        {
+        records.forEach((partition, list) ->
+            {
+            PartitionFile file = files.computeIfAbsent(partition, PartitionFile::new);
+            try
+                {
+                file.append(list);
+                }
+            catch (IOException e)
+                {
+                throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+    /**
+     * Return whether this member owns the specified partition.
+     *
+     * @param partition  the partition
+     *
+     * @return true if this member owns the specified partition
+     */
+    private boolean isOwned(int partition)
+        {
+        return service.getCluster().getLocalMember().equals(service.getPartitionOwner(partition));
+        }
+
+    /**
+     * Write the specified records to the specified file, and force them to
+     * the storage device.
+     *
+     * @param channel  the file
+     * @param records  the records to write
+     *
+     * @throws IOException if the records could not be written
+     */
+    private static void writeFully(FileChannel channel, List<Binary> records)
+            throws IOException
+        {
+        ByteBuffer[] buffers   = records.stream().map(Binary::toByteBuffer).toArray(ByteBuffer[]::new);
+        long         remaining = records.stream().mapToLong(Binary::length).sum();
+        while (remaining > 0)
+            {
+            remaining -= channel.write(buffers);
+            }
+        channel.force(false);
+        }
+
+    /**
+     * Merge the records from the specified files of a single partition.
+     *
+     * @param files  the files of a single partition, ordered by generation
+     *
+     * @return the latest record for each serialized key, which is
+     *         {@code null} if the entry was removed
+     *
+     * @throws IOException if the files could not be read
+     */
+    private static Map<Binary, Binary> merge(List<Path> files)
+            throws IOException
+        {
+        Map<Binary, Binary> entries = new LinkedHashMap<>();
+        for (Path file : files)
+            {
+            readRecords(file, entries::put);
+            }
+        return entries;
+        }
+
+    /**
+     * Read the records from the specified file.
+     * <p>
+     * The last record of a file may have been only partially written if the
+     * member that wrote it stopped, in which case it is ignored. No file is
+     * appended to after that, as the next owner of the partition starts a
+     * new generation.
+     *
+     * @param file      the file
+     * @param consumer  the consumer to pass the serialized key and value of
+     *                  each record to; the value is {@code null} if the
+     *                  entry was removed
+     *
+     * @throws IOException if the file could not be read
+     */
+    private static void readRecords(Path file, BiConsumer<Binary, Binary> consumer)
+            throws IOException
+        {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file)))
+            {
+            while (true)
+                {
+                int cbKey;
+                try
+                    {
+                    cbKey = in.readInt();
+                    }
+                catch (EOFException e)
+                    {
+                    break;
+                    }
+                byte[] abKey = new byte[cbKey];
+                in.readFully(abKey);
+
+                int    cbValue = in.readInt();
+                byte[] abValue = null;
+                if (cbValue >= 0)
+                    {
+                    abValue = new byte[cbValue];
+                    in.readFully(abValue);
+                    }
+
+                consumer.accept(new Binary(abKey), abValue == null ? null : new Binary(abValue));
+                }
+            }
+        catch (EOFException e)
+            {
+            // the last record was only partially written before the member stopped
+            }
+        }
+
+    /**
+     * Return the partition of the specified file.
+     *
+     * @param file  the partition file
+     *
+     * @return the partition of the specified file
+     */
+    private static int partitionOf(Path file)
+        {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        matcher.matches();
+        return Integer.parseInt(matcher.group(1));
+        }
+
+    /**
+     * Return the generation of the specified file.
+     *
+     * @param file  the partition file
+     *
+     * @return the generation of the specified file
+     */
+    private static long generationOf(Path file)
+        {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(2));
+        }
+
+    // ---- inner class: PartitionFile --------------------------------------
+
+    /**
+     * The file this member writes the records of a single partition to.
+     */
+    private class PartitionFile
+        {
+        // ---- data members ------------------------------------------------
+
+        /**
+         * The partition.
+         */
+        private final int partition;
+
+        /**
+         * The file of the generation this member writes to, or {@code null}
+         * if the next write should start a new generation.
+         */
+        private Path path;
+
+        /**
+         * The open file, or {@code null} if the file is closed.
+         */
+        private FileChannel channel;
+
+        /**
+         * The size of the file of the current generation after it was
+         * compacted.
+         */
+        private long compactedSize;
+
+        // ---- constructors ------------------------------------------------
+
+        /**
+         * Construct {@link PartitionFile} instance.
+         *
+         * @param partition  the partition
+         */
+        PartitionFile(int partition)
+            {
+            this.partition = partition;
+            }
+
+        /**
+         * Append the specified records to this file, and force them to the
+         * storage device.
+         * <p>
+         * A new generation is started when this member writes the records of
+         * a partition it owns for the first time. The records of a partition
+         * that has already been moved to another member are still appended
+         * to the generation this member has started while it owned it, as
+         * they were queued before the partition was moved, unless the new
+         * owner has already merged that generation into a newer one.
+         *
+         * @param records  the records to append
+         *
+         * @throws IOException if the records could not be written
+         */
+        synchronized void append(List<Binary> records)
+                throws IOException
+            {
+            if (channel == null)
+                {
+                if (path == null)
+                    {
+                    startGeneration();
+                    }
+                else
+                    {
+                    try
+                        {
+                        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                        }
+                    catch (NoSuchFileException e)
+                        {
+                        return;
+                        }
+                    }
+                }
+
+            writeFully(channel, records);
+
+            if (channel.size() > Math.max(compactThreshold, 2 * compactedSize) && isOwned(partition))
+                {
+                compact();
+                }
+            }
+
+        /**
+         * Start a new generation, which is newer than all existing ones.
+         *
+         * @throws IOException if the file could not be created
+         */
+        private void startGeneration()
+                throws IOException
+            {
+            List<Path> existing   = partitionFiles(directory).getOrDefault(partition, List.of());
+            long       generation = existing.isEmpty() ? 1 : generationOf(existing.get(existing.size() - 1)) + 1;
+            while (true)
+                {
+                try
+                    {
+                    path    = directory.resolve(fileName(partition, generation));
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                                               StandardOpenOption.APPEND);
+                    return;
+                    }
+                catch (FileAlreadyExistsException e)
+                    {
+                    generation++;
+                    }
+                }
+            }
+
+        /**
+         * Merge the current generation with the older generations that are
+         * no longer written to into a new generation, and delete the merged
+         * files.
+         * <p>
+         * Only the generations newer than the newest one another member may
+         * still be writing to are merged, so the records within the merged
+         * generations never override the newer records within a generation
+         * that was not merged. The removed entries are only dropped if all
+         * generations are merged, as they may still be present within the
+         * older generations otherwise.
+         *
+         * @throws IOException if the files could not be read or written
+         */
+        private void compact()
+                throws IOException
+            {
+            List<Path> existing = partitionFiles(directory).getOrDefault(partition, List.of());
+            if (existing.isEmpty() || !existing.get(existing.size() - 1).equals(path))
+                {
+                // another member has already started a newer generation
+                return;
+                }
+            long       quiet    = System.currentTimeMillis() - COMPACT_QUIET_PERIOD;
+            int        first    = existing.size() - 1;
+            while (first > 0)
+                {
+                Path older = existing.get(first - 1);
+                if (Files.getLastModifiedTime(older).toMillis() > quiet)
+                    {
+                    break;
+                    }
+                first--;
+                }
+
+            List<Path>          merged  = existing.subList(first, existing.size());
+            Map<Binary, Binary> entries = merge(merged);
+            if (first == 0)
+                {
+                entries.values().removeIf(Objects::isNull);
+                }
+
+            FileChannel previous = channel;
+            startGeneration();
+            List<Binary> records = new ArrayList<>(entries.size());
+            entries.forEach((binKey, binValue) -> records.add(record(binKey, binValue)));
+            writeFully(channel, records);
+            compactedSize = channel.size();
+
+            previous.close();
+            for (Path file : merged)
+                {
+                Files.deleteIfExists(file);
+                }
+            }
+
+        /**
+         * Close this file, so it is reopened by the next write.
+         *
+         * @param newGeneration  whether the next write should start a new
+         *                       generation, rather than reopen the current one
+         */
+        synchronized void close(boolean newGeneration)
+            {
+            try
+                {
+                if (channel != null)
+                    {
+                    channel.close();
+                    }
+                }
+            catch (IOException e)
+                {
+                // the records have already been forced to the storage device
+                }
+            channel = null;
+            if (newGeneration)
+                {
+                path          = null;
+                compactedSize = 0;
+                }
+            }
+        }
+
+    // ---- inner class: Listener -------------------------------------------
+
+    /**
+     * The listener that closes the files when the partitions are moved away
+     * from this member, or when the service stops.
+     */
+    private class Listener
+            implements PartitionListener, ServiceListener
+        {
+        @Override
+        public void onPartitionEvent(PartitionEvent event)
+            {
+            switch (event.getId())
+                {
+                case PartitionEvent.PARTITION_TRANSMIT_COMMIT:
+                case PartitionEvent.PARTITION_LOST:
+                    close(event.getPartitionSet(), false);
+                    break;
+
+                case PartitionEvent.PARTITION_RECEIVE_COMMIT:
+                case PartitionEvent.PARTITION_ASSIGNED:
+                case PartitionEvent.PARTITION_RECOVERED:
+                    close(event.getPartitionSet(), true);
+                    break;
+
+                default:
+                    break;
+                }
+            }
+
+        @Override
+        public void serviceStarting(ServiceEvent event)
+            {
+            }
+
+        @Override
+        public void serviceStarted(ServiceEvent event)
+            {
+            }
+
+        @Override
+        public void serviceStopping(ServiceEvent event)
+            {
+            }
+
+        @Override
+        public void serviceStopped(ServiceEvent event)
+            {
+            files.values().forEach(file -> file.close(true));
+            files.clear();
+            }
+
+        /**
+         * Close the files of the specified partitions.
+         *
+         * @param partitions     the partitions
+         * @param newGeneration  whether the next write should start a new
+         *                       generation
+         */
+        private void close(PartitionSet partitions, boolean newGeneration)
+            {
+            if (partitions == null)
+                {
+                return;
+                }
+            for (int partition = partitions.next(0); partition >= 0; partition = partitions.next(partition + 1))
+                {
+                PartitionFile file = files.get(partition);
+                if (file != null)
+                    {
+                    file.close(newGeneration);
+                    }
+                }
+            }
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The prefix of the partition file names.
+     */
+    public static final String FILE_PREFIX = "tasks-";
+
+    /**
+     * The suffix of the partition file names.
+     */
+    public static final String FILE_SUFFIX = ".log";
+
+    /**
+     * The pattern of the partition file names, which captures the partition
+     * and the generation.
+     */
+    private static final Pattern FILE_NAME = Pattern.compile("tasks-(\\d+)-(\\d+)\\.log");
+
+    /**
+     * How long the older generations must not have been written to before
+     * they are merged into a new generation, in milliseconds.
+     */
+    private static final long COMPACT_QUIET_PERIOD = 10 * 60 * 1000L;
+    }
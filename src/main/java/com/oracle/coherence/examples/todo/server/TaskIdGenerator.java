@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+/**
+ * A strategy for generating the ids of new {@link Task tasks}.
+ * <p>
+ * The strategy is selected using the {@code todo.tasks.id-generator}
+ * configuration property, which can be set to {@code time-ordered} (the
+ * default) for the {@link TimeOrderedTaskIdGenerator}, or to {@code random}
+ * for the {@link RandomTaskIdGenerator}.
+ */
+public interface TaskIdGenerator
+    {
+    /**
+     * Generate a new task id.
+     *
+     * @return a new task id
+     */
+    String generateId();
+
+    /**
+     * The name of the configuration property that selects the strategy.
+     */
+    String PROPERTY = "todo.tasks.id-generator";
+    }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.PartitionedService;
+
+import com.tangosol.net.partition.KeyAssociator;
+
+/**
+ * A {@link KeyAssociator} that associates the id of each {@link Task} that
+ * belongs to a user with the user name, so all tasks of the same user are
+ * stored in the same partition.
+ * <p>
+ * This allows the queries, aggregations and bulk updates scoped to a single
+ * user to be executed by a single storage member, instead of by all of them.
+ * The ids of the tasks that do not belong to any user are not associated with
+ * anything, so those tasks are still distributed across all partitions.
+ * <p>
+ * The user name itself is associated with itself, so it can be used as the
+ * host key of a {@link com.tangosol.util.filter.KeyAssociatedFilter}.
+ */
+public class TaskKeyAssociator
+        implements KeyAssociator
+    {
+    @Override
+    public void init(PartitionedService service)
+        {
+        }
+
+    @Override
+    public Object getAssociatedKey(Object key)
+        {
+        if (key instanceof String)
+            {
+            String owner = Task.ownerOf((String) key);
+            if (owner != null)
+                {
+                return owner;
+                }
+            }
+        return key;
+        }
+    }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.util.InvocableMap;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An entry processor that inserts the persisted entries loaded by the
+ * {@link TaskPreloader} as synthetic entries, unless they already exist.
+ * <p>
+ * The processor is meant to be invoked with the entries of a single
+ * partition, so it is sent once, to the owner of that partition only.
+ * Instead of returning a result for each entry, it counts the inserted
+ * entries on the storage member, and returns a single result, keyed by one
+ * of the processed keys, so the caller only has to sum up the results.
+ *
+ * @param <K>  the type of the keys
+ * @param <V>  the type of the values
+ */
+public class TaskLoadProcessor<K, V>
+        implements InvocableMap.EntryProcessor<K, V, Integer>, Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The entries to insert.
+     */
+    private Map<K, V> entries;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskLoadProcessor()
+        {
+        }
+
+    /**
+     * Construct {@link TaskLoadProcessor} instance.
+     *
+     * @param entries  the entries to insert
+     */
+    public TaskLoadProcessor(Map<K, V> entries)
+        {
+        this.entries = entries;
+        }
+
+    // ---- EntryProcessor interface ----------------------------------------
+
+    @Override
+    public Integer process(InvocableMap.Entry<K, V> entry)
+        {
+        if (entry.isPresent())
+            {
+            return 0;
+            }
+        entry.setValue(entries.get(entry.getKey()), true);
+        return 1;
+        }
+
+    @Override
+    public Map<K, Integer> processAll(Set<? extends InvocableMap.Entry<K, V>> set)
+        {
+        K   key   = null;
+        int count = 0;
+        for (InvocableMap.Entry<K, V> entry : set)
+            {
+            key    = entry.getKey();
+            count += process(entry);
+            }
+        return key == null ? Collections.emptyMap() : Collections.singletonMap(key, count);
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        entries = in.readMap(ENTRIES, new HashMap<>());
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeMap(ENTRIES, entries);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Sum up the results of this processor.
+     *
+     * @param results  the results of this processor
+     *
+     * @return the number of inserted entries
+     */
+    public static int count(Map<?, Integer> results)
+        {
+        return results.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the entries.
+     */
+    private static final int ENTRIES = 0;
+    }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of {@link Task tasks}, ordered by creation time and id,
+ * together with the cursor that should be used to fetch the next page.
+ *
+ * @author Aleks Seovic
+ */
+public class TaskPage
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The tasks within this page.
+     */
+    private final List<Task> tasks;
+
+    /**
+     * The cursor pointing to the last task within this page.
+     */
+    private final String endCursor;
+
+    /**
+     * The flag specifying whether there are more tasks after this page.
+     */
+    private final boolean hasNextPage;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct {@link TaskPage} instance.
+     *
+     * @param tasks        the tasks within this page
+     * @param hasNextPage  whether there are more tasks after this page
+     */
+    public TaskPage(List<Task> tasks, boolean hasNextPage)
+        {
+        this.tasks       = Collections.unmodifiableList(tasks);
+        this.endCursor   = tasks.isEmpty() ? null : cursorOf(tasks.get(tasks.size() - 1));
+        this.hasNextPage = hasNextPage;
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Get the tasks within this page.
+     *
+     * @return the tasks within this page
+     */
+    public List<Task> getTasks()
+        {
+        return tasks;
+        }
+
+    /**
+     * Get the cursor pointing to the last task within this page.
+     *
+     * @return the cursor pointing to the last task within this page,
+     *         or {@code null} if this page is empty
+     */
+    public String getEndCursor()
+        {
+        return endCursor;
+        }
+
+    /**
+     * Return whether there are more tasks after this page.
+     *
+     * @return true if there are more tasks after this page, false otherwise
+     */
+    public boolean isHasNextPage()
+        {
+        return hasNextPage;
+        }
+
+    // ---- cursor support --------------------------------------------------
+
+    /**
+     * Create an opaque cursor pointing to the specified {@link Task}.
+     *
+     * @param task  the task to create the cursor for
+     *
+     * @return an opaque cursor pointing to the specified task
+     */
+    public static String cursorOf(Task task)
+        {
+        String cursor = task.getCreatedAt() + ":" + task.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+        }
+
+    /**
+     * Decode the creation time from the specified cursor.
+     *
+     * @param cursor  the cursor created by {@link #cursorOf(Task)}
+     *
+     * @return the creation time of the task the cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    static long createdAtOf(String cursor)
+        {
+        String decoded = decode(cursor);
+        try
+            {
+            return Long.parseLong(decoded.substring(0, decoded.indexOf(':')));
+            }
+        catch (NumberFormatException e)
+            {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+        }
+
+    /**
+     * Decode the task id from the specified cursor.
+     *
+     * @param cursor  the cursor created by {@link #cursorOf(Task)}
+     *
+     * @return the id of the task the cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    static String idOf(String cursor)
+        {
+        String decoded = decode(cursor);
+        return decoded.substring(decoded.indexOf(':') + 1);
+        }
+
+    private static String decode(String cursor)
+        {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (decoded.indexOf(':') < 1)
+            {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+        return decoded;
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public String toString()
+        {
+        return "TaskPage{"
+               + "tasks=" + tasks.size()
+               + ", endCursor=" + endCursor
+               + ", hasNextPage=" + hasNextPage
+               + '}';
+        }
+    }
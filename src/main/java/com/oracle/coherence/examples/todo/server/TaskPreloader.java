@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.Member;
+import com.tangosol.net.PartitionedService;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+/**
+ * Loads the {@link Task tasks} and the {@link TaskArchiveSegment archived
+ * tasks} persisted by the {@link TaskFileStore} into the {@code tasks} and
+ * {@code tasks-archive} caches on startup.
+ * <p>
+ * The tasks are only loaded by the senior member of the service, which
+ * reads the files of all partitions in parallel and loads the tasks from
+ * each partition using a single entry processor invocation. The tasks that already
+ * exist in the caches are left as they are, as they are either newer than
+ * the persisted ones, or have already been loaded by a previous senior.
+ */
+@Context
+@Requires(property = "coherence.tasks.store.type", value = "file")
+public class TaskPreloader
+    {
+    // ---- data members ----------------------------------------------------
+
+    @Inject
+    private TaskRepository tasks;
+
+    @Inject
+    private TaskArchive archive;
+
+    /**
+     * The directory the partition files of the tasks are stored in.
+     */
+    @Value("${coherence.tasks.store.directory:tasks-store}")
+    private String directory;
+
+    /**
+     * The directory the partition files of the archived tasks are stored in.
+     */
+    @Value("${coherence.tasks.store.archive-directory:tasks-archive}")
+    private String archiveDirectory;
+
+    // ---- lifecycle -------------------------------------------------------
+
+    /**
+     * Load the persisted tasks, if this member is the senior member of the
+     * service.
+     */
+    @PostConstruct
+    void start()
+        {
+        PartitionedService service = tasks.getPartitionedService();
+        Member             senior  = service.getInfo().getOldestMember();
+        if (senior == null || !senior.equals(service.getCluster().getLocalMember()))
+            {
+            return;
+            }
+
+        TaskFileStore.partitionFiles(Paths.get(directory)).values().parallelStream()
+                .map(files -> TaskPreloader.<String, Task>read(files, service))
+                .filter(map -> !map.isEmpty())
+                .forEach(tasks::loadTasks);
+
+        TaskFileStore.partitionFiles(Paths.get(archiveDirectory)).values().parallelStream()
+                .map(files -> TaskPreloader.<TaskArchiveKey, TaskArchiveSegment>read(files, service))
+                .filter(map -> !map.isEmpty())
+                .forEach(archive::loadSegments);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Read the existing entries from the specified files of a single
+     * partition.
+     *
+     * @param files    the files of a single partition, ordered by generation
+     * @param service  the service the entries are stored in
+     * @param <K>      the type of the keys
+     * @param <V>      the type of the values
+     *
+     * @return the existing entries
+     */
+    private static <K, V> Map<K, V> read(List<Path> files, PartitionedService service)
+        {
+        try
+            {
+            return TaskFileStore.read(files, service.getSerializer());
+            }
+        catch (IOException e)
+            {
+            throw new UncheckedIOException(e);
+            }
+        }
+    }
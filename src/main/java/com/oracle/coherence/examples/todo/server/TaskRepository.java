@@ -6,9 +6,36 @@
  */
 package com.oracle.coherence.examples.todo.server;
 
+import com.tangosol.net.PartitionedService;
+import com.tangosol.net.partition.PartitionSet;
+
+import com.tangosol.util.Filter;
+import com.tangosol.util.InvocableMap;
+import com.tangosol.util.MapListener;
+import com.tangosol.util.ValueExtractor;
+
+import com.tangosol.util.aggregator.TopNAggregator;
+
+import com.tangosol.util.comparator.ChainedComparator;
+import com.tangosol.util.comparator.ExtractorComparator;
+import com.tangosol.util.comparator.InverseComparator;
+
+import com.tangosol.util.filter.PartitionedFilter;
+
 import io.micronaut.coherence.data.AbstractCoherenceRepository;
 import io.micronaut.coherence.data.annotation.CoherenceRepository;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.tangosol.util.Filters.isTrue;
+import static com.tangosol.util.Filters.less;
 
 /**
  * A {@code Coherence}-base {@code Micronaut Data} repository for working with {@link Task tasks}.
@@ -17,4 +44,294 @@ import java.util.Collection;
 public abstract class TaskRepository
         extends AbstractCoherenceRepository<Task, String>
     {
+    /**
+     * Return up to {@code limit} tasks that satisfy the specified filter,
+     * ordered by creation time and id.
+     * <p>
+     * Both the ordering and the limit are applied by each storage member in
+     * parallel, so no member returns more than {@code limit} tasks.
+     *
+     * @param filter  the filter tasks have to satisfy
+     * @param limit   the maximum number of tasks to return
+     *
+     * @return a list of up to {@code limit} tasks in creation order
+     */
+    @SuppressWarnings("unchecked")
+    public List<Task> getFirst(Filter<?> filter, int limit)
+        {
+        return toList(getMap().aggregate(filter, firstAggregator(limit)));
+        }
+
+    /**
+     * Return the tasks with the specified ids, using a single bulk operation.
+     *
+     * @param ids  the ids of the tasks to return
+     *
+     * @return a map of tasks, keyed by task id; tasks that do not exist are
+     *         not present in the map
+     */
+    public Map<String, Task> getAllById(Collection<String> ids)
+        {
+        return getMap().getAll(ids);
+        }
+
+    /**
+     * Calculate {@link TaskStats statistics} for all tasks that satisfy the
+     * specified filter.
+     * <p>
+     * The statistics are calculated by the storage members in parallel, and
+     * only the partial results are returned to the caller.
+     *
+     * @param filter  the filter tasks have to satisfy
+     *
+     * @return the statistics for all tasks that satisfy the specified filter
+     */
+    public TaskStats getStats(Filter<?> filter)
+        {
+        return getMap().aggregate(filter, new TaskStatsAggregator());
+        }
+
+    /**
+     * Update the completion status of the tasks with the specified ids.
+     * <p>
+     * All tasks are updated in parallel, using a single entry processor
+     * invocation.
+     *
+     * @param ids        the ids of the tasks to update
+     * @param completed  the new completion status
+     *
+     * @return a map of updated tasks, keyed by task id; tasks that do not
+     *         exist are not present in the map
+     */
+    public Map<String, Task> updateCompletionStatus(Collection<String> ids, boolean completed)
+        {
+        return getMap().invokeAll(ids, completionUpdater(completed));
+        }
+
+    /**
+     * Update the completion status of all tasks that satisfy the specified
+     * filter.
+     * <p>
+     * All tasks are updated in parallel by the storage members, using a
+     * single entry processor invocation, which only returns the number of
+     * tasks each member has updated.
+     *
+     * @param filter     the filter tasks have to satisfy
+     * @param completed  the new completion status
+     *
+     * @return the number of updated tasks
+     */
+    public int updateCompletionStatus(Filter<?> filter, boolean completed)
+        {
+        return getMap().invokeAll(filter, new TaskCompletionProcessor(completed)).values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        }
+
+    /**
+     * Remove the tasks with the specified ids.
+     * <p>
+     * All tasks are removed in parallel, using a single entry processor
+     * invocation.
+     *
+     * @param ids  the ids of the tasks to remove
+     *
+     * @return a map of removed tasks, keyed by task id; tasks that do not
+     *         exist are not present in the map
+     */
+    public Map<String, Task> removeTasks(Collection<String> ids)
+        {
+        return getMap().invokeAll(ids, remover());
+        }
+
+    /**
+     * Move the tasks completed before the specified time to the
+     * {@link TaskArchive}.
+     * <p>
+     * All tasks are moved in parallel by the storage members, using a single
+     * entry processor invocation, which only returns the number of tasks
+     * each member has archived.
+     *
+     * @param completedBefore  the time in milliseconds since the epoch the
+     *                         tasks have to be completed before
+     *
+     * @return the number of archived tasks
+     */
+    public int archiveCompletedTasks(long completedBefore)
+        {
+        Filter<Task> filter = isTrue(Task::getCompleted).and(less(Task::getCompletedAt, completedBefore));
+        return getMap().invokeAll(filter, new TaskArchiveProcessor(completedBefore)).values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        }
+
+    /**
+     * Load the specified tasks, unless the tasks with the same ids already
+     * exist.
+     * <p>
+     * All tasks are loaded in parallel, using a single entry processor
+     * invocation, and are inserted as synthetic entries, as they are not
+     * new tasks, but the tasks that already existed before the cluster was
+     * started.
+     *
+     * @param tasks  the tasks to load, keyed by task id
+     *
+     * @return the number of loaded tasks
+     */
+    public int loadTasks(Map<String, Task> tasks)
+        {
+        return TaskLoadProcessor.count(getMap().invokeAll(tasks.keySet(), new TaskLoadProcessor<>(tasks)));
+        }
+
+    /**
+     * Return a lazy stream of all tasks that satisfy the specified filter.
+     * <p>
+     * Tasks are fetched one partition at a time, as the stream is consumed,
+     * and are ordered by creation time and id within each partition only.
+     *
+     * @param filter  the filter tasks have to satisfy
+     *
+     * @return a lazy stream of tasks that satisfy the specified filter
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Stream<Task> streamByPartition(Filter<?> filter)
+        {
+        int partitionCount = getPartitionedService().getPartitionCount();
+
+        return IntStream.range(0, partitionCount)
+                .mapToObj(partition ->
+                    {
+                    PartitionSet partitions = new PartitionSet(partitionCount);
+                    partitions.add(partition);
+
+                    Filter<?> partFilter = new PartitionedFilter(filter, partitions);
+                    return getMap().entrySet(partFilter).stream()
+                            .map(Map.Entry::getValue)
+                            .sorted(CREATION_ORDER);
+                    })
+                .flatMap(s -> s);
+        }
+
+    /**
+     * Return the partitioned service the underlying map is stored in.
+     *
+     * @return the partitioned service the underlying map is stored in
+     */
+    public PartitionedService getPartitionedService()
+        {
+        return (PartitionedService) getMap().getService();
+        }
+
+    /**
+     * Add a standard map listener to the underlying map.
+     *
+     * @param listener  the listener to add
+     * @param filter    the filter events have to satisfy, or {@code null}
+     *                  for all events
+     * @param lite      whether the events may omit the old and new values
+     */
+    public void addMapListener(MapListener<? super String, ? super Task> listener, Filter<?> filter, boolean lite)
+        {
+        getMap().addMapListener(listener, filter, lite);
+        }
+
+    /**
+     * Remove a standard map listener from the underlying map.
+     *
+     * @param listener  the listener to remove
+     * @param filter    the filter the listener was added with
+     */
+    public void removeMapListener(MapListener<? super String, ? super Task> listener, Filter<?> filter)
+        {
+        getMap().removeMapListener(listener, filter);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Create an aggregator that returns up to {@code limit} tasks, ordered
+     * by creation time and id.
+     *
+     * @param limit  the maximum number of tasks to return
+     *
+     * @return an aggregator that returns an array of up to {@code limit} tasks
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static InvocableMap.EntryAggregator firstAggregator(int limit)
+        {
+        // TopNAggregator returns the largest values first, so we need to invert
+        // the creation order in order to get the oldest tasks in ascending order
+        return new TopNAggregator(ValueExtractor.identity(), new InverseComparator<>(CREATION_ORDER), limit);
+        }
+
+    /**
+     * Convert the result of the {@link #firstAggregator(int)} into a list.
+     *
+     * @param result  the result of the aggregator
+     *
+     * @return the list of tasks
+     */
+    static List<Task> toList(Object result)
+        {
+        Object[]   aoTask = (Object[]) result;
+        List<Task> list   = new ArrayList<>(aoTask.length);
+        for (Object o : aoTask)
+            {
+            list.add((Task) o);
+            }
+        return list;
+        }
+
+    /**
+     * Create an entry processor that removes a task.
+     *
+     * @return an entry processor that removes a task and returns the removed
+     *         task, or {@code null} if the task does not exist
+     */
+    static InvocableMap.EntryProcessor<String, Task, Task> remover()
+        {
+        return entry ->
+            {
+            if (!entry.isPresent())
+                {
+                return null;
+                }
+            Task task = entry.getValue();
+            entry.remove(false);
+            return task;
+            };
+        }
+
+    /**
+     * Create an entry processor that sets the completion status of a task.
+     *
+     * @param completed  the new completion status
+     *
+     * @return an entry processor that sets the completion status of a task
+     *         and returns the updated task, or {@code null} if the task does
+     *         not exist
+     */
+    static InvocableMap.EntryProcessor<String, Task, Task> completionUpdater(boolean completed)
+        {
+        return entry ->
+            {
+            if (!entry.isPresent())
+                {
+                return null;
+                }
+            Task task = entry.getValue().setCompleted(completed);
+            entry.setValue(task);
+            return task;
+            };
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The comparator that orders tasks by creation time and id.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Comparator<Task> CREATION_ORDER = new ChainedComparator<Task>(
+            new ExtractorComparator<Task>(Task::getCreatedAt),
+            new ExtractorComparator<Task>(Task::getId));
     }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+/**
+ * The result of a single item within a batch {@link Task} operation.
+ *
+ * @author Aleks Seovic
+ */
+public class TaskResult
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The task ID.
+     */
+    private final String id;
+
+    /**
+     * The task, if the operation was successful.
+     */
+    private final Task task;
+
+    /**
+     * The error message, if the operation has failed.
+     */
+    private final String error;
+
+    // ---- constructors ----------------------------------------------------
+
+    private TaskResult(String id, Task task, String error)
+        {
+        this.id    = id;
+        this.task  = task;
+        this.error = error;
+        }
+
+    /**
+     * Create a successful {@link TaskResult}.
+     *
+     * @param task  the task the operation was performed on
+     *
+     * @return a successful {@link TaskResult}
+     */
+    public static TaskResult success(Task task)
+        {
+        return new TaskResult(task.getId(), task, null);
+        }
+
+    /**
+     * Create a failed {@link TaskResult} for a task that could not be found.
+     *
+     * @param id  the id of the task that could not be found
+     *
+     * @return a failed {@link TaskResult}
+     */
+    public static TaskResult notFound(String id)
+        {
+        return new TaskResult(id, null, new TaskNotFoundException(id).getMessage());
+        }
+
+    /**
+     * Create a failed {@link TaskResult}.
+     *
+     * @param id     the id of the task the operation has failed for, or
+     *               {@code null} if the task does not have an id yet
+     * @param error  the error message
+     *
+     * @return a failed {@link TaskResult}
+     */
+    public static TaskResult failure(String id, String error)
+        {
+        return new TaskResult(id, null, error);
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Get the task ID.
+     *
+     * @return the task ID
+     */
+    public String getId()
+        {
+        return id;
+        }
+
+    /**
+     * Get the task the operation was performed on.
+     *
+     * @return the task, or {@code null} if the operation has failed
+     */
+    public Task getTask()
+        {
+        return task;
+        }
+
+    /**
+     * Get the error message.
+     *
+     * @return the error message, or {@code null} if the operation was successful
+     */
+    public String getError()
+        {
+        return error;
+        }
+
+    /**
+     * Return whether the operation was successful.
+     *
+     * @return true if the operation was successful, false otherwise
+     */
+    public boolean isSuccess()
+        {
+        return error == null;
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public String toString()
+        {
+        return "TaskResult{"
+               + "id=" + id
+               + ", task=" + task
+               + ", error=" + error
+               + '}';
+        }
+    }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Aggregated statistics for a set of {@link Task tasks}.
+ *
+ * @author Aleks Seovic
+ */
+public class TaskStats
+        implements Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The total number of tasks.
+     */
+    private long total;
+
+    /**
+     * The number of completed tasks.
+     */
+    private long completed;
+
+    /**
+     * The creation time of the oldest task.
+     */
+    private Long oldestCreatedAt;
+
+    /**
+     * The creation time of the newest task.
+     */
+    private Long newestCreatedAt;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor.
+     */
+    public TaskStats()
+        {
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Get the total number of tasks.
+     *
+     * @return the total number of tasks
+     */
+    public long getTotal()
+        {
+        return total;
+        }
+
+    /**
+     * Get the number of completed tasks.
+     *
+     * @return the number of completed tasks
+     */
+    public long getCompleted()
+        {
+        return completed;
+        }
+
+    /**
+     * Get the number of active tasks.
+     *
+     * @return the number of active tasks
+     */
+    public long getActive()
+        {
+        return total - completed;
+        }
+
+    /**
+     * Get the creation time of the oldest task.
+     *
+     * @return the creation time of the oldest task, or {@code null}
+     *         if there are no tasks
+     */
+    public Long getOldestCreatedAt()
+        {
+        return oldestCreatedAt;
+        }
+
+    /**
+     * Get the creation time of the newest task.
+     *
+     * @return the creation time of the newest task, or {@code null}
+     *         if there are no tasks
+     */
+    public Long getNewestCreatedAt()
+        {
+        return newestCreatedAt;
+        }
+
+    // ---- aggregation support ---------------------------------------------
+
+    /**
+     * Add the specified {@link Task} to these statistics.
+     *
+     * @param task  the task to add
+     */
+    void accumulate(Task task)
+        {
+        total++;
+        if (Boolean.TRUE.equals(task.getCompleted()))
+            {
+            completed++;
+            }
+        oldestCreatedAt = min(oldestCreatedAt, task.getCreatedAt());
+        newestCreatedAt = max(newestCreatedAt, task.getCreatedAt());
+        }
+
+    /**
+     * Merge the specified partial statistics into these statistics.
+     *
+     * @param stats  the partial statistics to merge
+     */
+    void merge(TaskStats stats)
+        {
+        total     += stats.total;
+        completed += stats.completed;
+        if (stats.total > 0)
+            {
+            oldestCreatedAt = min(oldestCreatedAt, stats.oldestCreatedAt);
+            newestCreatedAt = max(newestCreatedAt, stats.newestCreatedAt);
+            }
+        }
+
+    private static Long min(Long current, long value)
+        {
+        return current == null || value < current ? value : current;
+        }
+
+    private static Long max(Long current, long value)
+        {
+        return current == null || value > current ? value : current;
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+            throws IOException
+        {
+        total           = in.readLong(TOTAL);
+        completed       = in.readLong(COMPLETED);
+        oldestCreatedAt = in.readObject(OLDEST_CREATED_AT);
+        newestCreatedAt = in.readObject(NEWEST_CREATED_AT);
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+            throws IOException
+        {
+        out.writeLong(TOTAL, total);
+        out.writeLong(COMPLETED, completed);
+        out.writeObject(OLDEST_CREATED_AT, oldestCreatedAt);
+        out.writeObject(NEWEST_CREATED_AT, newestCreatedAt);
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public String toString()
+        {
+        return "TaskStats{"
+               + "total=" + total
+               + ", completed=" + completed
+               + ", oldestCreatedAt=" + oldestCreatedAt
+               + ", newestCreatedAt=" + newestCreatedAt
+               + '}';
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The POF index for the total number of tasks.
+     */
+    private static final int TOTAL = 0;
+
+    /**
+     * The POF index for the number of completed tasks.
+     */
+    private static final int COMPLETED = 1;
+
+    /**
+     * The POF index for the creation time of the oldest task.
+     */
+    private static final int OLDEST_CREATED_AT = 2;
+
+    /**
+     * The POF index for the creation time of the newest task.
+     */
+    private static final int NEWEST_CREATED_AT = 3;
+    }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+
+import com.tangosol.util.InvocableMap;
+
+import java.io.Serializable;
+
+/**
+ * A parallel aggregator that calculates {@link TaskStats} for a set of
+ * {@link Task tasks} on the storage members, so that only the partial
+ * statistics are sent over the network.
+ *
+ * @author Aleks Seovic
+ */
+public class TaskStatsAggregator
+        implements InvocableMap.StreamingAggregator<String, Task, TaskStats, TaskStats>,
+                   Serializable, PortableObject
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The statistics calculated by this aggregator.
+     */
+    private transient TaskStats stats;
+
+    // ---- StreamingAggregator interface -----------------------------------
+
+    @Override
+    public InvocableMap.StreamingAggregator<String, Task, TaskStats, TaskStats> supply()
+        {
+        return new TaskStatsAggregator();
+        }
+
+    @Override
+    public boolean accumulate(InvocableMap.Entry<? extends String, ? extends Task> entry)
+        {
+        ensureStats().accumulate(entry.getValue());
+        return true;
+        }
+
+    @Override
+    public boolean combine(TaskStats partialResult)
+        {
+        ensureStats().merge(partialResult);
+        return true;
+        }
+
+    @Override
+    public TaskStats getPartialResult()
+        {
+        return ensureStats();
+        }
+
+    @Override
+    public TaskStats finalizeResult()
+        {
+        return ensureStats();
+        }
+
+    @Override
+    public int characteristics()
+        {
+        return PARALLEL | PRESENT_ONLY;
+        }
+
+    // ---- PortableObject interface ---------------------------------------
+
+    @Override
+    public void readExternal(PofReader in)
+        {
+        }
+
+    @Override
+    public void writeExternal(PofWriter out)
+        {
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    private TaskStats ensureStats()
+        {
+        TaskStats stats = this.stats;
+        if (stats == null)
+            {
+            stats = this.stats = new TaskStats();
+            }
+        return stats;
+        }
+    }
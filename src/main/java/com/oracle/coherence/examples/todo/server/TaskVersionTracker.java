@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.MemberEvent;
+import com.tangosol.net.MemberListener;
+import com.tangosol.net.NamedMap;
+import com.tangosol.net.PartitionedService;
+
+import com.tangosol.net.partition.KeyPartitioningStrategy;
+
+import com.tangosol.util.MapEvent;
+import com.tangosol.util.MapListener;
+import com.tangosol.util.MapListenerSupport;
+import com.tangosol.util.MultiplexingMapListener;
+
+import io.micronaut.coherence.annotation.Name;
+
+import java.util.UUID;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tracks the version of the {@link Task tasks} within each partition, and of
+ * all tasks, by counting the changes observed by a lite listener on the local
+ * member.
+ * <p>
+ * The versions allow the API facades to tell whether the tasks may have
+ * changed since they were last returned to a client, without reading them.
+ * Because all tasks of the same user are stored in the same partition, the
+ * version of that partition covers all tasks of the user. The changes to
+ * the {@link TaskArchive} are counted separately, as the archived tasks are
+ * also deleted from the archive once their retention period expires.
+ * <p>
+ * The versions are only comparable within the same {@link #getEpoch() epoch}
+ * of the same member: each member counts the changes from the time it has
+ * started, and a new epoch is started whenever the members of the service
+ * change, as the events may be lost while the partitions are moved.
+ * <p>
+ * The versions are specific to each member, and are not a cluster-wide
+ * guarantee. The listener is synchronous, so a change made through this
+ * member is counted before the request that made it completes, but the
+ * changes made through the other members are only counted once their
+ * events arrive, so a client that changes the tasks through one member, and
+ * re-reads them through another, may briefly observe the old version.
+ * The conditional requests are therefore only reliable, and effective, if
+ * each client is consistently routed to the same member.
+ */
+@Singleton
+public class TaskVersionTracker
+    {
+    // ---- data members ----------------------------------------------------
+
+    @Inject
+    private TaskRepository tasks;
+
+    /**
+     * The archive segments.
+     */
+    @Inject
+    @Name(TaskArchive.CACHE_NAME)
+    private NamedMap<TaskArchiveKey, TaskArchiveSegment> archive;
+
+    /**
+     * The version of each partition.
+     */
+    private AtomicLongArray partitionVersions;
+
+    /**
+     * The version of all tasks.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The version of the archive.
+     */
+    private final AtomicLong archiveVersion = new AtomicLong();
+
+    /**
+     * The current epoch.
+     */
+    private volatile String epoch = newEpoch();
+
+    /**
+     * The strategy used to determine the partition of each key.
+     */
+    private KeyPartitioningStrategy partitioning;
+
+    /**
+     * The listener that counts the changes.
+     */
+    private final MapListener<String, Task> listener = new VersionListener();
+
+    /**
+     * The listener that counts the changes to the archive.
+     */
+    private final MapListener<TaskArchiveKey, TaskArchiveSegment> archiveListener = new ArchiveVersionListener();
+
+    /**
+     * The listener that starts a new epoch when the members of the service
+     * change.
+     */
+    private final MemberListener memberListener = new MemberListener()
+        {
+        @Override
+        public void memberJoined(MemberEvent event)
+            {
+            epoch = newEpoch();
+            }
+
+        @Override
+        public void memberLeaving(MemberEvent event)
+            {
+            }
+
+        @Override
+        public void memberLeft(MemberEvent event)
+            {
+            epoch = newEpoch();
+            }
+        };
+
+    // ---- lifecycle -------------------------------------------------------
+
+    /**
+     * Start tracking the changes.
+     */
+    @PostConstruct
+    void start()
+        {
+        PartitionedService service = tasks.getPartitionedService();
+
+        partitioning      = service.getKeyPartitioningStrategy();
+        partitionVersions = new AtomicLongArray(service.getPartitionCount());
+
+        service.addMemberListener(memberListener);
+        tasks.addMapListener(listener, null, true);
+        archive.addMapListener(archiveListener, null, true);
+        }
+
+    /**
+     * Stop tracking the changes.
+     */
+    @PreDestroy
+    void stop()
+        {
+        tasks.removeMapListener(listener, null);
+        archive.removeMapListener(archiveListener, null);
+        tasks.getPartitionedService().removeMemberListener(memberListener);
+        }
+
+    // ---- accessors -------------------------------------------------------
+
+    /**
+     * Return the current epoch, which the versions are relative to.
+     *
+     * @return the current epoch
+     */
+    public String getEpoch()
+        {
+        return epoch;
+        }
+
+    /**
+     * Return the version of all tasks.
+     *
+     * @return the version of all tasks
+     */
+    public long getVersion()
+        {
+        return version.get();
+        }
+
+    /**
+     * Return the version of the archive, which changes whenever the tasks are
+     * archived, or the archived tasks are deleted.
+     *
+     * @return the version of the archive
+     */
+    public long getArchiveVersion()
+        {
+        return archiveVersion.get();
+        }
+
+    /**
+     * Return the version of the partition the specified key, or the tasks
+     * associated with it, are stored in.
+     *
+     * @param key  the task id, or the user name
+     *
+     * @return the version of the partition the specified key is stored in
+     */
+    public long getVersion(String key)
+        {
+        return partitionVersions.get(partitioning.getKeyPartition(key));
+        }
+
+    // ---- inner class: VersionListener -----------------------------------
+
+    /**
+     * A synchronous listener that counts the changes.
+     * <p>
+     * The events are delivered on the service thread, before the request
+     * that caused them completes, so the listener must not block.
+     */
+    private class VersionListener
+            extends MultiplexingMapListener<String, Task>
+            implements MapListenerSupport.SynchronousListener<String, Task>
+        {
+        @Override
+        protected void onMapEvent(MapEvent<String, Task> event)
+            {
+            partitionVersions.incrementAndGet(partitioning.getKeyPartition(event.getKey()));
+            version.incrementAndGet();
+            }
+        }
+
+    // ---- inner class: ArchiveVersionListener ----------------------------
+
+    /**
+     * A synchronous listener that counts the changes to the archive.
+     */
+    private class ArchiveVersionListener
+            extends MultiplexingMapListener<TaskArchiveKey, TaskArchiveSegment>
+            implements MapListenerSupport.SynchronousListener<TaskArchiveKey, TaskArchiveSegment>
+        {
+        @Override
+        protected void onMapEvent(MapEvent<TaskArchiveKey, TaskArchiveSegment> event)
+            {
+            archiveVersion.incrementAndGet();
+            }
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Create a new, unique epoch.
+     *
+     * @return a new epoch
+     */
+    private static String newEpoch()
+        {
+        return Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+        }
+    }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import com.tangosol.net.Cluster;
+
+import io.micronaut.context.annotation.Requires;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A {@link TaskIdGenerator} that generates compact, roughly time-ordered ids
+ * that are unique across the cluster, without taking any locks.
+ * <p>
+ * Each id is a fixed-length, 14 character base-36 string, which consists of:
+ * <ul>
+ *     <li>the number of milliseconds since {@link #EPOCH}, multiplied by
+ *     the number of ids that can be generated per millisecond, plus the
+ *     sequence number of the id within that millisecond (10 characters);</li>
+ *     <li>the id of the local cluster member (3 characters); and</li>
+ *     <li>the stripe the id was generated by (1 character).</li>
+ * </ul>
+ * The ids are therefore ordered by creation time, both numerically and
+ * lexicographically, down to a millisecond.
+ * <p>
+ * The threads are spread across a number of stripes based on their id, and
+ * each stripe keeps the last generated value in its own cache line, so the
+ * threads only compete with the other threads in the same stripe. If a
+ * stripe runs out of sequence numbers within a millisecond, it continues
+ * with the next one, so the ids remain unique and ordered within the stripe.
+ * <p>
+ * The member id may be reused by a new member once the original member has
+ * left the cluster, so the ids are only unique as long as the clocks of the
+ * cluster members do not go back by more than the time between the two.
+ */
+@Singleton
+@Requires(property = TaskIdGenerator.PROPERTY, value = "time-ordered", defaultValue = "time-ordered")
+public class TimeOrderedTaskIdGenerator
+        implements TaskIdGenerator
+    {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The encoded id of the local cluster member.
+     */
+    private final char[] member;
+
+    /**
+     * The last value generated by each stripe, spaced apart so that each
+     * stripe is in its own cache line.
+     */
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct {@link TimeOrderedTaskIdGenerator} instance for the local
+     * member of the specified cluster.
+     *
+     * @param cluster  the cluster
+     */
+    @Inject
+    public TimeOrderedTaskIdGenerator(Cluster cluster)
+        {
+        this(cluster.getLocalMember().getId());
+        }
+
+    /**
+     * Construct {@link TimeOrderedTaskIdGenerator} instance for the member
+     * with the specified id.
+     *
+     * @param memberId  the member id
+     *
+     * @throws IllegalArgumentException if the member id is out of range
+     */
+    public TimeOrderedTaskIdGenerator(int memberId)
+        {
+        if (memberId < 0 || memberId >= MAX_MEMBER_ID)
+            {
+            throw new IllegalArgumentException("Invalid member id " + memberId);
+            }
+        this.member = new char[MEMBER_LENGTH];
+        encode(memberId, member, 0, MEMBER_LENGTH);
+        }
+
+    // ---- TaskIdGenerator interface ---------------------------------------
+
+    @Override
+    public String generateId()
+        {
+        int  stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        int  index  = stripe * STRIPE_SPACING;
+        long now    = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+
+        long prev;
+        long next;
+        do
+            {
+            prev = stripes.get(index);
+            next = Math.max(prev + 1, now);
+            }
+        while (!stripes.compareAndSet(index, prev, next));
+
+        char[] id = new char[LENGTH];
+        encode(next, id, 0, TIME_LENGTH);
+        System.arraycopy(member, 0, id, TIME_LENGTH, MEMBER_LENGTH);
+        id[LENGTH - 1] = Character.forDigit(stripe, RADIX);
+        return new String(id);
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Encode the specified value into the specified number of base-36 digits,
+     * padded with leading zeros.
+     *
+     * @param value   the value to encode
+     * @param buffer  the buffer to encode the value into
+     * @param offset  the offset of the first digit within the buffer
+     * @param length  the number of digits
+     */
+    private static void encode(long value, char[] buffer, int offset, int length)
+        {
+        for (int i = offset + length - 1; i >= offset; i--)
+            {
+            buffer[i] = Character.forDigit((int) (value % RADIX), RADIX);
+            value /= RADIX;
+            }
+        }
+
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * The time the ids are generated relative to (2021-01-01T00:00:00Z).
+     */
+    public static final long EPOCH = 1609459200000L;
+
+    /**
+     * The radix of the encoded ids.
+     */
+    private static final int RADIX = 36;
+
+    /**
+     * The number of bits of the sequence number within a millisecond, which
+     * allows each stripe to generate 1024 ids per millisecond.
+     */
+    private static final int SEQUENCE_BITS = 10;
+
+    /**
+     * The number of characters of the encoded time and sequence number,
+     * which is sufficient for more than a hundred years since the epoch.
+     */
+    private static final int TIME_LENGTH = 10;
+
+    /**
+     * The number of characters of the encoded member id.
+     */
+    private static final int MEMBER_LENGTH = 3;
+
+    /**
+     * The length of the generated ids.
+     */
+    private static final int LENGTH = TIME_LENGTH + MEMBER_LENGTH + 1;
+
+    /**
+     * The maximum member id, exclusive.
+     */
+    private static final int MAX_MEMBER_ID = RADIX * RADIX * RADIX;
+
+    /**
+     * The number of stripes, which has to be a power of two no greater than
+     * the radix, so that the stripe can be encoded as a single character.
+     */
+    private static final int STRIPES = 32;
+
+    /**
+     * The distance between two stripes within the array of stripes, which
+     * places each of them in a different 64-byte cache line.
+     */
+    private static final int STRIPE_SPACING = 8;
+    }
@@ -8,15 +8,29 @@
 package com.oracle.coherence.examples.todo.server;
 
 import com.tangosol.util.Filter;
+import com.tangosol.util.filter.KeyAssociatedFilter;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import static com.tangosol.util.Filters.always;
+import static com.tangosol.util.Filters.containsAll;
 import static com.tangosol.util.Filters.equal;
+import static com.tangosol.util.Filters.greater;
+import static com.tangosol.util.Filters.greaterEqual;
 import static com.tangosol.util.Filters.isTrue;
+import static com.tangosol.util.Filters.less;
+import static com.tangosol.util.Filters.lessEqual;
+import static com.tangosol.util.Filters.predicate;
 
 /**
  * To Do List API implementation that can be used by all API facades.
@@ -26,42 +40,261 @@ import static com.tangosol.util.Filters.isTrue;
 @Singleton
 public class ToDoListService
     {
+    //----- constants -------------------------------------------------------
+
+    /**
+     * The default number of tasks within a single {@link TaskPage}.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The maximum number of tasks within a single {@link TaskPage}.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * The name of the timer that records the latency of each operation,
+     * tagged with the operation name.
+     */
+    public static final String METRIC_NAME = "todo.service";
+
     //----- data members ----------------------------------------------------
 
     @Inject
     protected TaskRepository tasks;
 
+    @Inject
+    protected TaskIdGenerator idGenerator;
+
+    @Inject
+    protected TaskArchive archive;
+
     //----- ToDoListApi methods ---------------------------------------------
 
     /**
      * Create a {@link Task}.
      *
-     * @param description task description
+     * @param owner        optional name of the user the task belongs to
+     * @param description  task description
      *
      * @return the created {@link Task}
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
      */
-    public Task createTask(String description)
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "createTask"}, histogram = true)
+    public Task createTask(String owner, String description)
         {
         Objects.requireNonNull(description, "description is required");
-        return tasks.save(new Task(description));
+        return tasks.save(new Task(idGenerator.generateId(), owner, description));
+        }
+
+    /**
+     * Create multiple {@link Task}s using a single bulk operation.
+     *
+     * @param owner         optional name of the user the tasks belong to
+     * @param descriptions  task descriptions
+     *
+     * @return a list of {@link TaskResult}s for the created {@link Task}s,
+     *         in the same order as the descriptions; the results for the
+     *         missing descriptions are failed
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "createTasks"}, histogram = true)
+    public List<TaskResult> createTasks(String owner, Collection<String> descriptions)
+        {
+        Objects.requireNonNull(descriptions, "descriptions are required");
+        List<Task>       list    = new ArrayList<>(descriptions.size());
+        List<TaskResult> results = new ArrayList<>(descriptions.size());
+        for (String description : descriptions)
+            {
+            if (description == null)
+                {
+                // the other tasks in the batch are still created
+                results.add(TaskResult.failure(null, "description is required"));
+                }
+            else
+                {
+                Task task = new Task(idGenerator.generateId(), owner, description);
+                list.add(task);
+                results.add(TaskResult.success(task));
+                }
+            }
+
+        tasks.saveAll(list);
+        return results;
         }
 
     /**
      * Query {@link Task}s.
      *
-     * @param completed optionally specify completion status
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are returned if not specified
+     * @param completed  optionally specify completion status
      *
      * @return a {@link Collection} of {@link Task}s
      */
-    public Collection<Task> getTasks(Boolean completed)
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTasks"}, histogram = true)
+    public Collection<Task> getTasks(String owner, Boolean completed)
         {
-        Filter<Task> filter = completed == null
-                              ? always()
-                              : equal(Task::getCompleted, completed);
+        return tasks.getAllOrderedBy(ownerFilter(owner, completedFilter(completed)), Task::getCreatedAt);
+        }
 
+    /**
+     * Search {@link Task}s by completion status, creation time and
+     * description.
+     * <p>
+     * The creation time range is evaluated using the ordered index on
+     * {@link Task#getCreatedAt()}, and the text search using the index on
+     * the {@link Task#getDescriptionTrigrams() description trigrams}, so
+     * only the matching tasks are deserialized by the storage members.
+     *
+     * @param owner        optional name of the user the tasks belong to; the
+     *                     tasks of all users are searched if not specified
+     * @param completed    optionally specify completion status
+     * @param createdFrom  optional creation time (inclusive) in milliseconds
+     *                     since the epoch the tasks were created at or after
+     * @param createdTo    optional creation time (exclusive) in milliseconds
+     *                     since the epoch the tasks were created before
+     * @param text         optional text the task descriptions have to
+     *                     contain, ignoring case
+     *
+     * @return a {@link Collection} of {@link Task}s, ordered by creation time
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "searchTasks"}, histogram = true)
+    public Collection<Task> searchTasks(String owner, Boolean completed, Long createdFrom, Long createdTo,
+                                        String text)
+        {
+        Filter<Task> filter = ownerFilter(owner, searchFilter(completed, createdFrom, createdTo, text));
         return tasks.getAllOrderedBy(filter, Task::getCreatedAt);
         }
 
+    /**
+     * Stream {@link Task}s.
+     * <p>
+     * Unlike {@link #getTasks(String, Boolean)}, this method fetches tasks
+     * lazily, one partition at a time, so the tasks are not globally ordered
+     * by creation time. The tasks of a single user are all stored in the same
+     * partition, so they are fetched at once, in creation order.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are returned if not specified
+     * @param completed  optionally specify completion status
+     *
+     * @return a lazy {@link Stream} of {@link Task}s
+     */
+    public Stream<Task> streamTasks(String owner, Boolean completed)
+        {
+        return owner == null
+               ? tasks.streamByPartition(completedFilter(completed))
+               : getTasks(owner, completed).stream();
+        }
+
+    /**
+     * Query a single page of {@link Task}s, ordered by creation time.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are returned if not specified
+     * @param completed  optionally specify completion status
+     * @param after      optional cursor of the last task from the previous page
+     * @param limit      the maximum number of tasks to return
+     *
+     * @return a {@link TaskPage} containing up to {@code limit} tasks created
+     *         after the task the {@code after} cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTasksPage"}, histogram = true)
+    public TaskPage getTasks(String owner, Boolean completed, String after, int limit)
+        {
+        int          pageSize = pageSize(limit);
+        Filter<Task> filter   = ownerFilter(owner, pageFilter(completedFilter(completed), after));
+
+        // fetch one task more than requested to determine if there is a next page
+        return toPage(tasks.getFirst(filter, pageSize + 1), pageSize);
+        }
+
+    /**
+     * Search a single page of {@link Task}s by completion status, creation
+     * time and description, ordered by creation time.
+     *
+     * @param owner        optional name of the user the tasks belong to; the
+     *                     tasks of all users are searched if not specified
+     * @param completed    optionally specify completion status
+     * @param createdFrom  optional creation time (inclusive) in milliseconds
+     *                     since the epoch the tasks were created at or after
+     * @param createdTo    optional creation time (exclusive) in milliseconds
+     *                     since the epoch the tasks were created before
+     * @param text         optional text the task descriptions have to
+     *                     contain, ignoring case
+     * @param after        optional cursor of the last task from the previous page
+     * @param limit        the maximum number of tasks to return
+     *
+     * @return a {@link TaskPage} containing up to {@code limit} matching tasks
+     *         created after the task the {@code after} cursor points to
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "searchTasksPage"}, histogram = true)
+    public TaskPage searchTasks(String owner, Boolean completed, Long createdFrom, Long createdTo, String text,
+                                String after, int limit)
+        {
+        int          pageSize = pageSize(limit);
+        Filter<Task> filter   = ownerFilter(owner,
+                pageFilter(searchFilter(completed, createdFrom, createdTo, text), after));
+
+        return toPage(tasks.getFirst(filter, pageSize + 1), pageSize);
+        }
+
+    /**
+     * Calculate {@link TaskStats statistics} for all {@link Task}s.
+     *
+     * @param owner  optional name of the user the tasks belong to; the
+     *               statistics for the tasks of all users are calculated
+     *               if not specified
+     *
+     * @return the {@link TaskStats} for all {@link Task}s
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getTaskStats"}, histogram = true)
+    public TaskStats getTaskStats(String owner)
+        {
+        return tasks.getStats(ownerFilter(owner, always()));
+        }
+
+    /**
+     * Search the archived {@link Task}s by completion time and description,
+     * ordered by completion time, starting with the most recently completed
+     * ones.
+     * <p>
+     * The completed tasks are moved to the {@link TaskArchive} by the
+     * {@link TaskArchiver} once they have been completed for long enough,
+     * so they are not returned by the other methods anymore.
+     *
+     * @param owner          optional name of the user the tasks belong to;
+     *                       the archived tasks of all users are searched if
+     *                       not specified
+     * @param completedFrom  optional completion time (inclusive) in
+     *                       milliseconds since the epoch the tasks were
+     *                       completed at or after
+     * @param completedTo    optional completion time (exclusive) in
+     *                       milliseconds since the epoch the tasks were
+     *                       completed before
+     * @param text           optional text the task descriptions have to
+     *                       contain, ignoring case
+     * @param limit          the maximum number of tasks to return
+     *
+     * @return a list of up to {@code limit} matching archived tasks
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "getArchivedTasks"}, histogram = true)
+    public List<Task> getArchivedTasks(String owner, Long completedFrom, Long completedTo, String text, int limit)
+        {
+        return archive.getTasks(segmentFilter(owner, completedFrom, completedTo),
+                                archivedFilter(owner, completedFrom, completedTo, text),
+                                pageSize(limit));
+        }
+
     /**
      * Find a {@link Task}.
      *
@@ -71,6 +304,7 @@ public class ToDoListService
      *
      * @throws TaskNotFoundException if the task was not found
      */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "findTask"}, histogram = true)
     public Task findTask(String id)
         {
         return Optional
@@ -78,6 +312,21 @@ public class ToDoListService
                 .orElseThrow(() -> new TaskNotFoundException(id));
         }
 
+    /**
+     * Find multiple {@link Task}s using a single bulk operation.
+     *
+     * @param ids  the ids of the tasks to find
+     *
+     * @return a map of found {@link Task}s, keyed by task id; tasks that
+     *         do not exist are not present in the map
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "findTasks"}, histogram = true)
+    public Map<String, Task> findTasks(Collection<String> ids)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return tasks.getAllById(ids);
+        }
+
     /**
      * Delete a {@link Task}.
      *
@@ -87,6 +336,7 @@ public class ToDoListService
      *
      * @throws TaskNotFoundException if the task was not found
      */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteTask"}, histogram = true)
     public Task deleteTask(String id)
         {
         return Optional
@@ -97,11 +347,15 @@ public class ToDoListService
     /**
      * Remove all completed {@link Task}s.
      *
+     * @param owner  optional name of the user the tasks belong to; the
+     *               completed tasks of all users are removed if not specified
+     *
      * @return whether any tasks have been removed
      */
-    public boolean deleteCompletedTasks()
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteCompletedTasks"}, histogram = true)
+    public boolean deleteCompletedTasks(String owner)
         {
-        return tasks.removeAll(isTrue(Task::getCompleted));
+        return tasks.removeAll(ownerFilter(owner, isTrue(Task::getCompleted)));
         }
 
     /**
@@ -114,6 +368,7 @@ public class ToDoListService
      *
      * @throws TaskNotFoundException if the task was not found
      */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateDescription"}, histogram = true)
     public Task updateDescription(String id, String description)
         {
         Task task = tasks.update(id, Task::setDescription, description);
@@ -132,6 +387,7 @@ public class ToDoListService
      *
      * @throws TaskNotFoundException if the task was not found
      */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateCompletionStatus"}, histogram = true)
     public Task updateCompletionStatus(String id, boolean completed)
         {
         Task task = tasks.update(id, Task::setCompleted, completed);
@@ -139,4 +395,274 @@ public class ToDoListService
                 .ofNullable(task)
                 .orElseThrow(() -> new TaskNotFoundException(id));
         }
+
+    /**
+     * Update completion status of multiple {@link Task}s using a single
+     * bulk operation.
+     *
+     * @param ids        tasks to update
+     * @param completed  new completion status
+     *
+     * @return a list of {@link TaskResult}s, in the same order as the ids
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateTasksCompletionStatus"}, histogram = true)
+    public List<TaskResult> updateCompletionStatus(Collection<String> ids, boolean completed)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return toResults(ids, tasks.updateCompletionStatus(ids, completed));
+        }
+
+    /**
+     * Update completion status of all {@link Task}s.
+     * <p>
+     * Only the tasks whose completion status differs from the specified one
+     * are updated, in parallel, using a single entry processor invocation.
+     *
+     * @param owner      optional name of the user the tasks belong to; the
+     *                   tasks of all users are updated if not specified
+     * @param completed  new completion status
+     *
+     * @return the number of updated {@link Task}s
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "updateAllCompletionStatus"}, histogram = true)
+    public int updateAllCompletionStatus(String owner, boolean completed)
+        {
+        return tasks.updateCompletionStatus(ownerFilter(owner, equal(Task::getCompleted, !completed)), completed);
+        }
+
+    /**
+     * Delete multiple {@link Task}s using a single bulk operation.
+     *
+     * @param ids  tasks to delete
+     *
+     * @return a list of {@link TaskResult}s, in the same order as the ids
+     */
+    @Timed(value = METRIC_NAME, extraTags = {"operation", "deleteTasks"}, histogram = true)
+    public List<TaskResult> deleteTasks(Collection<String> ids)
+        {
+        Objects.requireNonNull(ids, "ids are required");
+        return toResults(ids, tasks.removeTasks(ids));
+        }
+
+    //----- helpers ---------------------------------------------------------
+
+    /**
+     * Restrict the specified filter to the tasks of the specified user.
+     * <p>
+     * All tasks of the same user are stored in the same partition by the
+     * {@link TaskKeyAssociator}, so the returned filter is evaluated by the
+     * storage member that owns that partition only, instead of by all of
+     * them. It still has to check the owner of each task, because the tasks
+     * of other users may be stored in the same partition.
+     *
+     * @param owner   optional name of the user the tasks belong to
+     * @param filter  the filter to restrict
+     *
+     * @return a filter for the tasks of the specified user that satisfy the
+     *         specified filter, or the specified filter if the user name is
+     *         not specified
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    static Filter<Task> ownerFilter(String owner, Filter<Task> filter)
+        {
+        return owner == null
+               ? filter
+               : new KeyAssociatedFilter<>(filter.and(equal(Task::getOwner, Task.validateOwner(owner))), owner);
+        }
+
+    /**
+     * Create a filter for the tasks with the specified completion status.
+     *
+     * @param completed  optionally specify completion status
+     *
+     * @return a filter for the tasks with the specified completion status
+     */
+    static Filter<Task> completedFilter(Boolean completed)
+        {
+        return completed == null
+               ? always()
+               : equal(Task::getCompleted, completed);
+        }
+
+    /**
+     * Create a filter for the tasks with the specified completion status,
+     * created within the specified time range, whose descriptions contain
+     * the specified text.
+     * <p>
+     * The text is split into {@link Trigrams trigrams}, which are matched
+     * against the description trigram index first, in order to narrow down
+     * the candidates to the tasks that contain all of them. Only those
+     * candidates are then checked for the actual text, which eliminates the
+     * tasks that contain all the trigrams, but not in the right order. Text
+     * shorter than three characters has no trigrams, so it is only checked
+     * against the descriptions directly.
+     *
+     * @param completed    optionally specify completion status
+     * @param createdFrom  optional creation time (inclusive)
+     * @param createdTo    optional creation time (exclusive)
+     * @param text         optional text the task descriptions have to contain
+     *
+     * @return a filter for the matching tasks
+     */
+    static Filter<Task> searchFilter(Boolean completed, Long createdFrom, Long createdTo, String text)
+        {
+        Filter<Task> filter = completedFilter(completed);
+        if (createdFrom != null)
+            {
+            filter = filter.and(greaterEqual(Task::getCreatedAt, createdFrom));
+            }
+        if (createdTo != null)
+            {
+            filter = filter.and(less(Task::getCreatedAt, createdTo));
+            }
+
+        String normalized = Trigrams.normalize(text);
+        if (!normalized.isEmpty())
+            {
+            Set<String> trigrams = Trigrams.of(normalized);
+            if (!trigrams.isEmpty())
+                {
+                filter = filter.and(containsAll(Task::getDescriptionTrigrams, trigrams));
+                }
+            filter = filter.and(predicate(Task::getDescription,
+                                          description -> Trigrams.normalize(description).contains(normalized)));
+            }
+        return filter;
+        }
+
+    /**
+     * Create a filter for the {@link TaskArchiveSegment archive segments}
+     * that may contain the tasks of the specified user, completed within the
+     * specified time range.
+     * <p>
+     * The archived tasks of the same user are stored in the same partition
+     * as the user's tasks, so the returned filter is evaluated by the storage
+     * member that owns that partition only.
+     *
+     * @param owner          optional name of the user the tasks belong to
+     * @param completedFrom  optional completion time (inclusive)
+     * @param completedTo    optional completion time (exclusive)
+     *
+     * @return a filter for the matching segments
+     *
+     * @throws IllegalArgumentException if the owner name is not valid
+     */
+    static Filter<TaskArchiveSegment> segmentFilter(String owner, Long completedFrom, Long completedTo)
+        {
+        Filter<TaskArchiveSegment> filter = always();
+        if (completedFrom != null)
+            {
+            filter = filter.and(greaterEqual(TaskArchiveSegment::getDay,
+                                             Math.floorDiv(completedFrom, TaskArchiveProcessor.MILLIS_PER_DAY)));
+            }
+        if (completedTo != null)
+            {
+            filter = filter.and(lessEqual(TaskArchiveSegment::getDay,
+                                          Math.floorDiv(completedTo - 1, TaskArchiveProcessor.MILLIS_PER_DAY)));
+            }
+        return owner == null
+               ? filter
+               : new KeyAssociatedFilter<>(filter, Task.validateOwner(owner));
+        }
+
+    /**
+     * Create a filter for the archived tasks of the specified user, completed
+     * within the specified time range, whose descriptions contain the
+     * specified text.
+     *
+     * @param owner          optional name of the user the tasks belong to
+     * @param completedFrom  optional completion time (inclusive)
+     * @param completedTo    optional completion time (exclusive)
+     * @param text           optional text the task descriptions have to contain
+     *
+     * @return a filter for the matching archived tasks
+     */
+    static Filter<Task> archivedFilter(String owner, Long completedFrom, Long completedTo, String text)
+        {
+        Filter<Task> filter = searchFilter(null, null, null, text);
+        if (owner != null)
+            {
+            filter = filter.and(equal(Task::getOwner, owner));
+            }
+        if (completedFrom != null)
+            {
+            filter = filter.and(greaterEqual(Task::getCompletedAt, completedFrom));
+            }
+        if (completedTo != null)
+            {
+            filter = filter.and(less(Task::getCompletedAt, completedTo));
+            }
+        return filter;
+        }
+
+    /**
+     * Create a filter for the tasks that satisfy the specified filter,
+     * created after the task the specified cursor points to.
+     *
+     * @param filter  the filter tasks have to satisfy
+     * @param after   optional cursor of the last task from the previous page
+     *
+     * @return a filter for the tasks within the next page
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    static Filter<Task> pageFilter(Filter<Task> filter, String after)
+        {
+        if (after != null)
+            {
+            long   createdAt = TaskPage.createdAtOf(after);
+            String id        = TaskPage.idOf(after);
+
+            filter = filter.and(greater(Task::getCreatedAt, createdAt)
+                                  .or(equal(Task::getCreatedAt, createdAt).and(greater(Task::getId, id))));
+            }
+        return filter;
+        }
+
+    /**
+     * Limit the requested page size to the supported range.
+     *
+     * @param limit  the requested page size
+     *
+     * @return the page size between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    static int pageSize(int limit)
+        {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        }
+
+    /**
+     * Create a {@link TaskPage} from the specified list of tasks, which
+     * contains one task more than the page size if there is a next page.
+     *
+     * @param list      the tasks
+     * @param pageSize  the page size
+     *
+     * @return a {@link TaskPage}
+     */
+    static TaskPage toPage(List<Task> list, int pageSize)
+        {
+        boolean hasNextPage = list.size() > pageSize;
+        return new TaskPage(hasNextPage ? list.subList(0, pageSize) : list, hasNextPage);
+        }
+
+    /**
+     * Convert the results of a bulk operation into a list of {@link TaskResult}s.
+     *
+     * @param ids      the ids of the tasks the bulk operation was performed on
+     * @param results  the tasks returned by the bulk operation, keyed by id
+     *
+     * @return a list of {@link TaskResult}s, in the same order as the ids
+     */
+    static List<TaskResult> toResults(Collection<String> ids, Map<String, Task> results)
+        {
+        return ids.stream()
+                .map(id ->
+                    {
+                    Task task = results.get(id);
+                    return task == null ? TaskResult.notFound(id) : TaskResult.success(task);
+                    })
+                .collect(Collectors.toList());
+        }
     }
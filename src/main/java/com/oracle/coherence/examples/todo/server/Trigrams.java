@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Helper methods for splitting text into trigrams, the three character
+ * sequences used to index the {@link Task} descriptions for text search.
+ * <p>
+ * The text is lower-cased and its whitespace is collapsed before it is
+ * split, so the search is case-insensitive.
+ */
+final class Trigrams
+    {
+    /**
+     * Prevent instantiation.
+     */
+    private Trigrams()
+        {
+        }
+
+    /**
+     * Return the trigrams of the specified text.
+     *
+     * @param text  the text to split into trigrams
+     *
+     * @return the trigrams of the specified text, which is empty if the text
+     *         is {@code null} or shorter than three characters
+     */
+    static Set<String> of(String text)
+        {
+        String normalized = normalize(text);
+        if (normalized.length() < 3)
+            {
+            return Collections.emptySet();
+            }
+
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++)
+            {
+            trigrams.add(normalized.substring(i, i + 3));
+            }
+        return trigrams;
+        }
+
+    /**
+     * Normalize the specified text by lower-casing it, and collapsing and
+     * trimming its whitespace.
+     *
+     * @param text  the text to normalize
+     *
+     * @return the normalized text
+     */
+    static String normalize(String text)
+        {
+        return text == null
+               ? ""
+               : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+    }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+
+import io.micronaut.context.exceptions.ConfigurationException;
+
+import io.micronaut.scheduling.TaskExecutors;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * Replaces the {@code Micronaut} IO executor with an executor that runs
+ * each task on a new virtual thread, when the
+ * {@code todo.virtual-threads.enabled} property is {@code true}.
+ * <p>
+ * Combined with the {@code micronaut.server.thread-selection: IO} setting,
+ * this runs every request handler on its own virtual thread, so a large
+ * number of slow, concurrent requests no longer requires a large pool of
+ * platform threads.
+ * <p>
+ * Virtual threads require JDK 21 or newer. The executor is created
+ * reflectively, so the application can still be compiled for, and run on,
+ * older JDKs with the virtual threads disabled.
+ */
+@Factory
+@Requires(property = "todo.virtual-threads.enabled", value = "true")
+public class VirtualThreadExecutorFactory
+    {
+    @Bean(preDestroy = "shutdown")
+    @Singleton
+    @Named(TaskExecutors.IO)
+    @Replaces(bean = ExecutorService.class, named = TaskExecutors.IO)
+    public ExecutorService virtualThreadExecutor()
+        {
+        try
+            {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+        catch (ReflectiveOperationException e)
+            {
+            throw new ConfigurationException("Virtual threads are not supported by Java "
+                                             + System.getProperty("java.version")
+                                             + "; set todo.virtual-threads.enabled to false or use JDK 21+", e);
+            }
+        }
+    }
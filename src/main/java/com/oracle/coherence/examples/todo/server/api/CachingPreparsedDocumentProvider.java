@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import com.tangosol.net.cache.LocalCache;
+
+import graphql.ExecutionInput;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.micronaut.context.annotation.Value;
+
+import java.nio.charset.StandardCharsets;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A {@link PreparsedDocumentProvider} that caches parsed and validated
+ * {@code GraphQL} documents, and supports Automatic Persisted Queries.
+ * <p>
+ * Documents are cached by query text in a bounded cache, so each distinct
+ * query is only parsed and validated once. A client that sends the SHA-256
+ * hash of a query in the {@code persistedQuery} extension may omit the
+ * query text once the server has seen it: if the hash is not known, the
+ * request fails with a {@code PersistedQueryNotFound} error, and the client
+ * is expected to retry with both the hash and the query text.
+ */
+@Singleton
+public class CachingPreparsedDocumentProvider
+        implements PreparsedDocumentProvider
+    {
+    @Inject
+    private MeterRegistry registry;
+
+    /**
+     * The maximum number of cached documents.
+     */
+    @Value("${todo.graphql.document-cache-size:1000}")
+    private int documentCacheSize;
+
+    /**
+     * The maximum number of persisted queries.
+     */
+    @Value("${todo.graphql.persisted-query-cache-size:1000}")
+    private int persistedQueryCacheSize;
+
+    /**
+     * The parsed and validated documents, keyed by query text.
+     */
+    private LocalCache documents;
+
+    /**
+     * The persisted query texts, keyed by SHA-256 hash.
+     */
+    private LocalCache persistedQueries;
+
+    /**
+     * Create the caches and register their metrics.
+     */
+    @PostConstruct
+    void init()
+        {
+        documents        = new LocalCache(documentCacheSize);
+        persistedQueries = new LocalCache(persistedQueryCacheSize);
+
+        registerMetrics("documents", documents);
+        registerMetrics("persisted-queries", persistedQueries);
+        }
+
+    // ---- PreparsedDocumentProvider interface -----------------------------
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction)
+        {
+        String query = executionInput.getQuery();
+        String hash  = persistedQueryHash(executionInput);
+
+        if (hash != null)
+            {
+            if (isBlank(query))
+                {
+                String persisted = (String) persistedQueries.get(hash);
+                if (persisted == null)
+                    {
+                    return new PreparsedDocumentEntry(new PersistedQueryNotFound(hash));
+                    }
+                query          = persisted;
+                executionInput = executionInput.transform(builder -> builder.query(persisted));
+                }
+            else if (hash.equalsIgnoreCase(sha256(query)))
+                {
+                persistedQueries.put(hash, query);
+                }
+            else
+                {
+                return new PreparsedDocumentEntry(new PersistedQueryIdInvalid(hash));
+                }
+            }
+
+        PreparsedDocumentEntry entry = (PreparsedDocumentEntry) documents.get(query);
+        if (entry == null)
+            {
+            entry = parseAndValidateFunction.apply(executionInput);
+            if (!entry.hasErrors())
+                {
+                documents.put(query, entry);
+                }
+            }
+        return entry;
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Return the persisted query hash from the {@code persistedQuery}
+     * extension of the specified execution input.
+     *
+     * @param executionInput  the execution input
+     *
+     * @return the persisted query hash, or {@code null} if not specified
+     */
+    private static String persistedQueryHash(ExecutionInput executionInput)
+        {
+        Map<String, Object> extensions = executionInput.getExtensions();
+        Object persistedQuery = extensions == null ? null : extensions.get("persistedQuery");
+        if (persistedQuery instanceof Map)
+            {
+            Object hash = ((Map<?, ?>) persistedQuery).get("sha256Hash");
+            return hash == null ? null : hash.toString();
+            }
+        return null;
+        }
+
+    private static boolean isBlank(String query)
+        {
+        return query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query);
+        }
+
+    private static String sha256(String query)
+        {
+        try
+            {
+            byte[]        digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb     = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+            return sb.toString();
+            }
+        catch (NoSuchAlgorithmException e)
+            {
+            throw new IllegalStateException(e);
+            }
+        }
+
+    /**
+     * Register the size, hit and miss metrics for the specified cache.
+     *
+     * @param name   the name of the cache
+     * @param cache  the cache to register the metrics for
+     */
+    private void registerMetrics(String name, LocalCache cache)
+        {
+        Gauge.builder("todo.graphql.cache.size", cache, LocalCache::size)
+                .description("The number of entries in the GraphQL cache")
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("todo.graphql.cache.hits", cache, c -> c.getCacheStatistics().getCacheHits())
+                .description("The number of GraphQL cache hits")
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("todo.graphql.cache.misses", cache, c -> c.getCacheStatistics().getCacheMisses())
+                .description("The number of GraphQL cache misses")
+                .tag("cache", name)
+                .register(registry);
+        }
+    }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import graphql.execution.instrumentation.SimpleInstrumentation;
+
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLNamedType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A {@code GraphQL} instrumentation that records the latency of each
+ * non-trivial {@link DataFetcher} in the {@code todo.graphql.fetch} timer,
+ * tagged with the name of the fetched field.
+ * <p>
+ * The latency of the asynchronous data fetchers is recorded when the
+ * returned {@link CompletionStage} completes.
+ */
+@Singleton
+public class GraphQlMetricsInstrumentation
+        extends SimpleInstrumentation
+    {
+    @Inject
+    private MeterRegistry registry;
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters)
+        {
+        if (parameters.isTrivialDataFetcher())
+            {
+            return dataFetcher;
+            }
+
+        return environment ->
+            {
+            Timer.Sample sample = Timer.start(registry);
+            Object       result;
+            try
+                {
+                result = dataFetcher.get(environment);
+                }
+            catch (Exception e)
+                {
+                sample.stop(timer(environment, e));
+                throw e;
+                }
+
+            if (result instanceof CompletionStage)
+                {
+                return ((CompletionStage<?>) result).whenComplete((value, e) -> sample.stop(timer(environment, e)));
+                }
+
+            sample.stop(timer(environment, null));
+            return result;
+            };
+        }
+
+    /**
+     * Return the timer for the field fetched within the specified environment.
+     *
+     * @param environment  the data fetching environment
+     * @param error        the error thrown by the data fetcher, if any
+     *
+     * @return the timer for the fetched field
+     */
+    private Timer timer(DataFetchingEnvironment environment, Throwable error)
+        {
+        if (error instanceof CompletionException && error.getCause() != null)
+            {
+            error = error.getCause();
+            }
+
+        String type = environment.getParentType() instanceof GraphQLNamedType
+                      ? ((GraphQLNamedType) environment.getParentType()).getName()
+                      : "";
+
+        return Timer.builder("todo.graphql.fetch")
+                .description("The latency of the GraphQL data fetchers")
+                .tag("type", type)
+                .tag("field", environment.getFieldDefinition().getName())
+                .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry);
+        }
+    }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import graphql.ExecutionInput;
+
+import io.micronaut.configuration.graphql.GraphQLExecutionInputCustomizer;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A {@link GraphQLExecutionInputCustomizer} that passes the user the request
+ * is scoped to, specified using the {@value ToDoListRestController#USER_HEADER}
+ * header, to the data fetchers, as the {@value ToDoListGraphQlFactory#OWNER}
+ * entry of the {@link graphql.GraphQLContext}.
+ *
+ * @see ToDoListInputCustomizer
+ */
+@Singleton
+public class OwnerInputCustomizer
+        implements GraphQLExecutionInputCustomizer
+    {
+    @Override
+    public Publisher<ExecutionInput> customize(ExecutionInput executionInput, HttpRequest httpRequest,
+                                               @Nullable MutableHttpResponse<String> httpResponse)
+        {
+        String owner = httpRequest.getHeaders().get(ToDoListRestController.USER_HEADER);
+        if (owner == null)
+            {
+            return Publishers.just(executionInput);
+            }
+
+        return Publishers.just(executionInput.transform(builder ->
+                builder.graphQLContext(Map.of(ToDoListGraphQlFactory.OWNER, owner))));
+        }
+    }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import graphql.ExecutionInput;
+
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+
+import io.micronaut.configuration.graphql.GraphQLExecutionInputCustomizer;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.type.Argument;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+
+import io.micronaut.http.exceptions.HttpStatusException;
+
+import io.micronaut.json.JsonMapper;
+
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A {@link GraphQLExecutionInputCustomizer} that passes the {@code extensions}
+ * of a {@code GraphQL} request to the {@link ExecutionInput}, so they can be
+ * used by the {@link CachingPreparsedDocumentProvider} to look up the
+ * persisted queries.
+ * <p>
+ * The extensions are read from the {@code extensions} query parameter of
+ * the {@code GET} requests, and from the body of the {@code POST} requests.
+ * The requests with malformed extensions are rejected with a
+ * {@code 400 Bad Request} response.
+ *
+ * @see ToDoListInputCustomizer
+ */
+@Singleton
+public class PersistedQueryInputCustomizer
+        implements GraphQLExecutionInputCustomizer
+    {
+    @Inject
+    private JsonMapper jsonMapper;
+
+    @Override
+    public Publisher<ExecutionInput> customize(ExecutionInput executionInput, HttpRequest httpRequest,
+                                               @Nullable MutableHttpResponse<String> httpResponse)
+        {
+        Map<String, Object> extensions;
+        try
+            {
+            extensions = extensions(httpRequest);
+            }
+        catch (IOException e)
+            {
+            // report the malformed extensions to the client, rather than
+            // treating them as a missing persisted query
+            return Publishers.just(new HttpStatusException(HttpStatus.BAD_REQUEST,
+                                                           "Malformed GraphQL extensions: " + e.getMessage()));
+            }
+        if (extensions == null || extensions.isEmpty())
+            {
+            return Publishers.just(executionInput);
+            }
+
+        String query = executionInput.getQuery();
+        return Publishers.just(executionInput.transform(builder ->
+            {
+            builder.extensions(extensions);
+            if (query == null || query.isBlank())
+                {
+                builder.query(PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+                }
+            }));
+        }
+
+    // ---- helpers ---------------------------------------------------------
+
+    /**
+     * Read the extensions from the specified request.
+     *
+     * @param httpRequest  the request
+     *
+     * @return the extensions, or {@code null} if the request has none
+     *
+     * @throws IOException if the extensions are malformed
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> extensions(HttpRequest<?> httpRequest)
+            throws IOException
+        {
+        String extensions = httpRequest.getParameters().get("extensions");
+        if (extensions != null)
+            {
+            return jsonMapper.readValue(extensions, Argument.mapOf(String.class, Object.class));
+            }
+
+        Optional<String> body = httpRequest.getBody(String.class);
+        if (body.isPresent() && !body.get().isBlank())
+            {
+            Map<String, Object> request = jsonMapper.readValue(body.get(), Argument.mapOf(String.class, Object.class));
+            Object value = request.get("extensions");
+            if (value != null && !(value instanceof Map))
+                {
+                throw new IOException("extensions must be a JSON object");
+                }
+            return (Map<String, Object>) value;
+            }
+        return null;
+        }
+    }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import io.micronaut.core.annotation.Introspected;
+
+import java.util.List;
+
+/**
+ * A batch of task operations submitted to the REST API.
+ * <p>
+ * Each operation is optional, and they are performed in the order in
+ * which they are declared in this class.
+ */
+@Introspected
+public class TaskBatch
+    {
+    /**
+     * The descriptions of the tasks to create.
+     */
+    private List<String> create;
+
+    /**
+     * The ids of the tasks to mark as completed.
+     */
+    private List<String> complete;
+
+    /**
+     * The ids of the tasks to mark as active.
+     */
+    private List<String> reopen;
+
+    /**
+     * The ids of the tasks to delete.
+     */
+    private List<String> delete;
+
+    /**
+     * Get the descriptions of the tasks to create.
+     *
+     * @return the descriptions of the tasks to create, or {@code null} if there are none
+     */
+    public List<String> getCreate()
+        {
+        return create;
+        }
+
+    /**
+     * Set the descriptions of the tasks to create.
+     *
+     * @param create  the descriptions of the tasks to create
+     */
+    public void setCreate(List<String> create)
+        {
+        this.create = create;
+        }
+
+    /**
+     * Get the ids of the tasks to mark as completed.
+     *
+     * @return the ids of the tasks to mark as completed, or {@code null} if there are none
+     */
+    public List<String> getComplete()
+        {
+        return complete;
+        }
+
+    /**
+     * Set the ids of the tasks to mark as completed.
+     *
+     * @param complete  the ids of the tasks to mark as completed
+     */
+    public void setComplete(List<String> complete)
+        {
+        this.complete = complete;
+        }
+
+    /**
+     * Get the ids of the tasks to mark as active.
+     *
+     * @return the ids of the tasks to mark as active, or {@code null} if there are none
+     */
+    public List<String> getReopen()
+        {
+        return reopen;
+        }
+
+    /**
+     * Set the ids of the tasks to mark as active.
+     *
+     * @param reopen  the ids of the tasks to mark as active
+     */
+    public void setReopen(List<String> reopen)
+        {
+        this.reopen = reopen;
+        }
+
+    /**
+     * Get the ids of the tasks to delete.
+     *
+     * @return the ids of the tasks to delete, or {@code null} if there are none
+     */
+    public List<String> getDelete()
+        {
+        return delete;
+        }
+
+    /**
+     * Set the ids of the tasks to delete.
+     *
+     * @param delete  the ids of the tasks to delete
+     */
+    public void setDelete(List<String> delete)
+        {
+        this.delete = delete;
+        }
+    }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import com.oracle.coherence.examples.todo.server.Task;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import io.micronaut.core.annotation.Introspected;
+
+/**
+ * A change to a single {@link Task}, broadcast to event subscribers.
+ */
+@Introspected
+public class TaskEvent
+    {
+    /**
+     * The type of event raised when a task is created.
+     */
+    public static final String INSERT = "insert";
+
+    /**
+     * The type of event raised when a task is updated.
+     */
+    public static final String UPDATE = "update";
+
+    /**
+     * The type of event raised when a task is deleted.
+     */
+    public static final String DELETE = "delete";
+
+    /**
+     * The event type.
+     */
+    private final String type;
+
+    /**
+     * The task ID.
+     */
+    private final String id;
+
+    /**
+     * The task; the deleted task for {@link #DELETE} events, or {@code null}
+     * for lite events.
+     */
+    private final Task task;
+
+    /**
+     * The sequence number assigned to this event by the broadcaster.
+     */
+    private long sequence;
+
+    /**
+     * Construct {@link TaskEvent} instance.
+     *
+     * @param type  the event type
+     * @param id    the task ID
+     * @param task  the task, or {@code null} for lite events
+     */
+    public TaskEvent(String type, String id, Task task)
+        {
+        this.type = type;
+        this.id   = id;
+        this.task = task;
+        }
+
+    /**
+     * Get the event type.
+     *
+     * @return the event type
+     */
+    public String getType()
+        {
+        return type;
+        }
+
+    /**
+     * Get the task ID.
+     *
+     * @return the task ID
+     */
+    public String getId()
+        {
+        return id;
+        }
+
+    /**
+     * Get the task.
+     *
+     * @return the task, or {@code null} for lite events
+     */
+    public Task getTask()
+        {
+        return task;
+        }
+
+    /**
+     * Get the sequence number assigned to this event by the broadcaster.
+     *
+     * @return the sequence number of this event
+     */
+    @JsonIgnore
+    public long getSequence()
+        {
+        return sequence;
+        }
+
+    /**
+     * Set the sequence number of this event.
+     *
+     * @param sequence  the sequence number
+     */
+    void setSequence(long sequence)
+        {
+        this.sequence = sequence;
+        }
+
+    /**
+     * Return whether this is a lite event, which does not carry the task.
+     *
+     * @return true if this is a lite event, false otherwise
+     */
+    @JsonIgnore
+    public boolean isLite()
+        {
+        return task == null;
+        }
+
+    @Override
+    public String toString()
+        {
+        return "TaskEvent{"
+               + "sequence=" + sequence
+               + ", type=" + type
+               + ", id=" + id
+               + '}';
+        }
+    }
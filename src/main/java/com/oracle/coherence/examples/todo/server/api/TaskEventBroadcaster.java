@@ -0,0 +1,805 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import com.oracle.coherence.examples.todo.server.Task;
+import com.oracle.coherence.examples.todo.server.TaskRepository;
+
+import com.tangosol.util.Filter;
+import com.tangosol.util.MapEvent;
+import com.tangosol.util.MapListener;
+
+import com.tangosol.util.filter.MapEventFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.micronaut.context.annotation.Value;
+
+import io.micronaut.http.sse.Event;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+
+import io.reactivex.disposables.Disposable;
+
+import io.reactivex.subjects.UnicastSubject;
+
+import java.time.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import static com.tangosol.util.Filters.equal;
+import static com.tangosol.util.Filters.in;
+
+/**
+ * Broadcasts {@link Task} changes to event subscribers.
+ * <p>
+ * All subscribers with the same {@link Subscription subscription} criteria
+ * share a single cache listener, which is registered with a cluster-side
+ * filter, so only the matching changes leave the storage members, and the
+ * lite subscriptions only receive the task ids. The subscriptions scoped to
+ * a user only receive the changes to the tasks of that user.
+ * <p>
+ * Changes to the same task within the configured coalescing window are
+ * merged into a single event, and the number of events buffered for each
+ * subscriber is bounded: a subscriber that falls too far behind receives a
+ * {@code resync} event and is disconnected, and is expected to reload the
+ * tasks and reconnect.
+ * <p>
+ * Each event is assigned an id, and the recent events for each subscription
+ * are retained, so a subscriber that reconnects to the same member with the
+ * {@code Last-Event-ID} header only receives the events it has missed.
+ */
+@Singleton
+public class TaskEventBroadcaster
+    {
+    @Inject
+    private TaskRepository tasks;
+
+    /**
+     * The time window within which the changes to the same task are
+     * coalesced; zero disables coalescing.
+     */
+    @Value("${todo.events.coalesce-window:50ms}")
+    private Duration coalesceWindow;
+
+    /**
+     * The maximum number of events buffered for each subscriber.
+     */
+    @Value("${todo.events.buffer-size:1000}")
+    private int bufferSize;
+
+    /**
+     * The maximum number of recent events retained for each subscription,
+     * so they can be replayed to the reconnecting subscribers.
+     */
+    @Value("${todo.events.replay-size:1000}")
+    private int replaySize;
+
+    /**
+     * The time the cache listener and the recent events for a subscription
+     * are retained for after its last subscriber disconnects.
+     */
+    @Value("${todo.events.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    @Inject
+    private MeterRegistry registry;
+
+    /**
+     * The number of connected subscribers.
+     */
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    /**
+     * The number of events buffered for all subscribers.
+     */
+    private final AtomicLong backlog = new AtomicLong();
+
+    /**
+     * The counter of the cache events received by the shared listeners.
+     */
+    private Counter receivedCounter;
+
+    /**
+     * The counter of the events sent to the subscribers.
+     */
+    private Counter sentCounter;
+
+    /**
+     * The counter of the {@code resync} events sent to the subscribers.
+     */
+    private Counter resyncCounter;
+
+    /**
+     * The prefix of the ids of the events emitted by this broadcaster, which
+     * distinguishes them from the events emitted by other members, or by the
+     * previous incarnations of this member.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX)
+                                 + Long.toString(ThreadLocalRandom.current().nextInt(1 << 20), Character.MAX_RADIX);
+
+    /**
+     * The sequence number of the last event emitted by this broadcaster.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The shared streams of coalesced changes, keyed by subscription.
+     */
+    private final Map<Subscription, SharedStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Register the event fan-out metrics.
+     */
+    @PostConstruct
+    void registerMetrics()
+        {
+        Gauge.builder("todo.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("The number of connected event subscribers")
+                .register(registry);
+        Gauge.builder("todo.events.streams", streams, Map::size)
+                .description("The number of shared event streams, one per distinct subscription")
+                .register(registry);
+        Gauge.builder("todo.events.backlog", backlog, AtomicLong::get)
+                .description("The number of events buffered for all subscribers")
+                .register(registry);
+
+        receivedCounter = Counter.builder("todo.events.received")
+                .description("The number of cache events received by the shared listeners")
+                .register(registry);
+        sentCounter = Counter.builder("todo.events.sent")
+                .description("The number of events sent to the subscribers")
+                .register(registry);
+        resyncCounter = Counter.builder("todo.events.resyncs")
+                .description("The number of resync events sent to the subscribers")
+                .register(registry);
+        }
+
+    /**
+     * Return the stream of server-sent events for a single subscriber.
+     *
+     * @param owner        optionally specify the user whose tasks to receive
+     *                     the changes for
+     * @param completed    optionally specify completion status of the tasks
+     *                     to receive the changes for
+     * @param ids          optionally specify the ids of the tasks to receive
+     *                     the changes for
+     * @param lite         whether the events should only carry the task ids
+     * @param batch        whether to emit each set of coalesced changes as a
+     *                     single {@code batch} event, instead of one event per
+     *                     change
+     * @param lastEventId  the id of the last event received by a reconnecting
+     *                     subscriber, or {@code null} for a new subscriber
+     *
+     * @return the stream of server-sent events for a single subscriber
+     */
+    public Flowable<Event<?>> events(String owner, Boolean completed, Collection<String> ids, boolean lite,
+                                     boolean batch, String lastEventId)
+        {
+        Subscription subscription = new Subscription(owner, completed, ids, lite);
+
+        Observable<List<TaskEvent>> batches = Observable.defer(() ->
+            {
+            SharedStream stream = streams.computeIfAbsent(subscription, this::createStream);
+            if (lastEventId == null)
+                {
+                return stream.live;
+                }
+
+            Long lastSequence = parseSequence(lastEventId);
+            if (lastSequence == null)
+                {
+                return Observable.error(new ResyncException("Unknown event id " + lastEventId));
+                }
+
+            // subscribe to the live stream before taking the snapshot of the
+            // recent events, so no events are missed in between
+            UnicastSubject<List<TaskEvent>> pending = UnicastSubject.create();
+            Disposable disposable = stream.live.subscribe(pending::onNext, pending::onError, pending::onComplete);
+
+            List<TaskEvent> missed = stream.recent.since(lastSequence);
+            if (missed == null)
+                {
+                disposable.dispose();
+                return Observable.error(new ResyncException("Event " + lastEventId + " is no longer available"));
+                }
+
+            long lastReplayed = missed.isEmpty() ? lastSequence : missed.get(missed.size() - 1).getSequence();
+            return Observable.just(missed)
+                    .concatWith(pending.map(list -> after(list, lastReplayed)))
+                    .filter(list -> !list.isEmpty())
+                    .doFinally(disposable::dispose);
+            });
+
+        Observable<Event<?>> events;
+        if (batch)
+            {
+            events = batches.map(list -> Event.of(list)
+                    .name("batch")
+                    .id(eventId(list.get(list.size() - 1))));
+            }
+        else
+            {
+            events = batches.flatMapIterable(list -> list)
+                    .map(event -> (event.isLite() ? Event.of(event) : Event.of(event.getTask()))
+                            .name(event.getType())
+                            .id(eventId(event)));
+            }
+
+        return buffer(events)
+                .onErrorResumeNext(e ->
+                    {
+                    resyncCounter.increment();
+                    return Flowable.just(Event.of(e instanceof ResyncException ? e.getMessage() : "Event buffer overflow")
+                                                 .name("resync"));
+                    });
+        }
+
+    /**
+     * Return the stream of task changes for a single {@code GraphQL}
+     * subscriber.
+     * <p>
+     * The subscriber shares the cache listener with all other subscribers,
+     * including the server-sent event subscribers, that have the same
+     * subscription criteria. A subscriber that falls too far behind
+     * receives an error, and is expected to reload the tasks and resubscribe.
+     *
+     * @param owner      optionally specify the user whose tasks to receive
+     *                   the changes for
+     * @param completed  optionally specify completion status of the tasks
+     *                   to receive the changes for
+     *
+     * @return the stream of task changes for a single subscriber
+     */
+    public Flowable<TaskEvent> taskEvents(String owner, Boolean completed)
+        {
+        Subscription subscription = new Subscription(owner, completed, null, false);
+
+        return buffer(Observable.defer(() -> streams.computeIfAbsent(subscription, this::createStream).live)
+                              .flatMapIterable(list -> list));
+        }
+
+    /**
+     * Buffer up to the configured number of events for a single subscriber,
+     * and record the subscriber and backlog metrics.
+     *
+     * @param events  the events to buffer
+     * @param <T>     the type of the events
+     *
+     * @return the buffered stream of events, which fails with a
+     *         {@link io.reactivex.exceptions.MissingBackpressureException}
+     *         if the buffer overflows
+     */
+    private <T> Flowable<T> buffer(Observable<T> events)
+        {
+        return Flowable.defer(() ->
+            {
+            // the number of events buffered for this subscriber
+            AtomicLong pending = new AtomicLong();
+
+            return events.toFlowable(BackpressureStrategy.MISSING)
+                    .doOnSubscribe(s -> subscriberCount.incrementAndGet())
+                    .doOnNext(e ->
+                        {
+                        pending.incrementAndGet();
+                        backlog.incrementAndGet();
+                        })
+                    .onBackpressureBuffer(bufferSize)
+                    .doOnNext(e ->
+                        {
+                        pending.decrementAndGet();
+                        backlog.decrementAndGet();
+                        sentCounter.increment();
+                        })
+                    .doFinally(() ->
+                        {
+                        subscriberCount.decrementAndGet();
+                        backlog.addAndGet(-pending.getAndSet(0));
+                        });
+            });
+        }
+
+    /**
+     * Create a shared stream of coalesced changes for the specified subscription.
+     * <p>
+     * The cache listener is registered when the first subscriber subscribes
+     * to the stream, and is removed once the last subscriber has been gone
+     * for longer than the idle timeout.
+     * <p>
+     * A subscriber may still obtain the stream just before it is removed,
+     * and reconnect it, so the recent events are discarded whenever the
+     * listener is registered, as the events raised while it was not were
+     * never recorded, and the stream is registered again, unless it has
+     * already been replaced.
+     *
+     * @param subscription  the subscription to create the stream for
+     *
+     * @return a shared stream of coalesced changes
+     */
+    private SharedStream createStream(Subscription subscription)
+        {
+        SharedStream stream = new SharedStream(new ReplayBuffer(replaySize, sequence.get()));
+
+        Observable<TaskEvent> source = Observable.<TaskEvent>create(emitter ->
+            {
+            MapListener<String, Task> listener = new EventEmitter(emitter, subscription.isLite());
+            stream.recent.reset(sequence.get());
+            tasks.addMapListener(listener, subscription.getFilter(), subscription.isLite());
+            streams.putIfAbsent(subscription, stream);
+            emitter.setCancellable(() ->
+                {
+                tasks.removeMapListener(listener, subscription.getFilter());
+                streams.remove(subscription, stream);
+                });
+            }).doOnNext(event -> receivedCounter.increment());
+
+        Observable<List<TaskEvent>> batches = coalesceWindow.isZero()
+                ? source.map(Collections::singletonList)
+                : source.buffer(coalesceWindow.toMillis(), TimeUnit.MILLISECONDS)
+                        .filter(events -> !events.isEmpty())
+                        .map(TaskEventBroadcaster::coalesce);
+
+        // sequence numbers are assigned, and the events recorded, upstream of
+        // the shared subscription, so the events that arrive while there are
+        // no subscribers can still be replayed
+        stream.live = batches
+                .doOnNext(list ->
+                    {
+                    list.forEach(event -> event.setSequence(sequence.incrementAndGet()));
+                    stream.recent.addAll(list);
+                    })
+                .publish()
+                .refCount(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        return stream;
+        }
+
+    /**
+     * Return the id of the specified event.
+     *
+     * @param event  the event
+     *
+     * @return the id of the specified event
+     */
+    private String eventId(TaskEvent event)
+        {
+        return epoch + "-" + event.getSequence();
+        }
+
+    /**
+     * Parse the sequence number from the specified event id.
+     *
+     * @param eventId  the event id
+     *
+     * @return the sequence number, or {@code null} if the event id was not
+     *         created by this broadcaster
+     */
+    private Long parseSequence(String eventId)
+        {
+        String prefix = epoch + "-";
+        if (eventId.startsWith(prefix))
+            {
+            try
+                {
+                return Long.parseLong(eventId.substring(prefix.length()));
+                }
+            catch (NumberFormatException ignore)
+                {
+                }
+            }
+        return null;
+        }
+
+    /**
+     * Return the events from the specified list that come after the specified
+     * sequence number.
+     *
+     * @param events    the events
+     * @param sequence  the sequence number
+     *
+     * @return the events that come after the specified sequence number
+     */
+    private static List<TaskEvent> after(List<TaskEvent> events, long sequence)
+        {
+        return events.get(0).getSequence() > sequence
+               ? events
+               : events.stream().filter(event -> event.getSequence() > sequence).collect(Collectors.toList());
+        }
+
+    /**
+     * Coalesce the specified events, so there is at most one event per task.
+     *
+     * @param events  the events to coalesce, in the order they were raised
+     *
+     * @return the coalesced events
+     */
+    static List<TaskEvent> coalesce(List<TaskEvent> events)
+        {
+        if (events.size() == 1)
+            {
+            return events;
+            }
+
+        Map<String, TaskEvent> map = new LinkedHashMap<>();
+        for (TaskEvent event : events)
+            {
+            TaskEvent previous = map.remove(event.getId());
+            TaskEvent merged   = previous == null ? event : merge(previous, event);
+            if (merged != null)
+                {
+                map.put(event.getId(), merged);
+                }
+            }
+        return new ArrayList<>(map.values());
+        }
+
+    /**
+     * Merge two consecutive events for the same task.
+     *
+     * @param previous  the earlier event
+     * @param next      the later event
+     *
+     * @return the merged event, or {@code null} if the events cancel each other out
+     */
+    private static TaskEvent merge(TaskEvent previous, TaskEvent next)
+        {
+        switch (previous.getType())
+            {
+            case TaskEvent.INSERT:
+                // subscribers have never seen the task, so the deletion can be dropped
+                return TaskEvent.DELETE.equals(next.getType())
+                       ? null
+                       : new TaskEvent(TaskEvent.INSERT, next.getId(), next.getTask());
+            case TaskEvent.DELETE:
+                // subscribers still have the deleted task, so the re-insert is an update
+                return TaskEvent.INSERT.equals(next.getType())
+                       ? new TaskEvent(TaskEvent.UPDATE, next.getId(), next.getTask())
+                       : next;
+            default:
+                return next;
+            }
+        }
+
+    // ---- inner class: Subscription ---------------------------------------
+
+    /**
+     * The criteria that determine which changes, and in which form, a
+     * subscriber receives.
+     */
+    static final class Subscription
+        {
+        /**
+         * The user whose tasks to receive the changes for.
+         */
+        private final String owner;
+
+        /**
+         * The completion status of the tasks to receive the changes for.
+         */
+        private final Boolean completed;
+
+        /**
+         * The ids of the tasks to receive the changes for.
+         */
+        private final Set<String> ids;
+
+        /**
+         * Whether the events should only carry the task ids.
+         */
+        private final boolean lite;
+
+        /**
+         * The cluster-side filter for the cache listener.
+         */
+        private final Filter<?> filter;
+
+        /**
+         * Construct {@link Subscription} instance.
+         *
+         * @param owner      optional user name
+         * @param completed  optional completion status
+         * @param ids        optional task ids
+         * @param lite       whether the events should only carry the task ids
+         *
+         * @throws IllegalArgumentException if the user name is not valid
+         */
+        Subscription(String owner, Boolean completed, Collection<String> ids, boolean lite)
+            {
+            this.owner     = owner == null ? null : Task.validateOwner(owner);
+            this.completed = completed;
+            this.ids       = ids == null || ids.isEmpty() ? null : new TreeSet<>(ids);
+            this.lite      = lite;
+            this.filter    = createFilter();
+            }
+
+        /**
+         * Return the cluster-side filter for the cache listener.
+         *
+         * @return the filter, or {@code null} if all changes should be received
+         */
+        Filter<?> getFilter()
+            {
+            return filter;
+            }
+
+        /**
+         * Return whether the events should only carry the task ids.
+         *
+         * @return true if the events should only carry the task ids
+         */
+        boolean isLite()
+            {
+            return lite;
+            }
+
+        private Filter<?> createFilter()
+            {
+            Filter<Task> filter = null;
+            if (owner != null)
+                {
+                filter = equal(Task::getOwner, owner);
+                }
+            if (completed != null)
+                {
+                Filter<Task> completedFilter = equal(Task::getCompleted, completed);
+                filter = filter == null ? completedFilter : filter.and(completedFilter);
+                }
+            if (ids != null)
+                {
+                Filter<Task> idFilter = in(Task::getId, ids);
+                filter = filter == null ? idFilter : filter.and(idFilter);
+                }
+
+            // changes that move a task out of the subscription are delivered
+            // as well, so subscribers can remove it from their view
+            return filter == null ? null : new MapEventFilter<>(MapEventFilter.E_ALL, filter);
+            }
+
+        @Override
+        public boolean equals(Object o)
+            {
+            if (this == o)
+                {
+                return true;
+                }
+            if (o == null || getClass() != o.getClass())
+                {
+                return false;
+                }
+            Subscription that = (Subscription) o;
+            return lite == that.lite &&
+                   Objects.equals(owner, that.owner) &&
+                   Objects.equals(completed, that.completed) &&
+                   Objects.equals(ids, that.ids);
+            }
+
+        @Override
+        public int hashCode()
+            {
+            return Objects.hash(owner, completed, ids, lite);
+            }
+        }
+
+    // ---- inner class: EventEmitter ---------------------------------------
+
+    /**
+     * A {@link MapListener} that converts cache events into
+     * {@link TaskEvent}s and emits them to a stream.
+     */
+    private static final class EventEmitter
+            implements MapListener<String, Task>
+        {
+        /**
+         * The emitter to emit the events to.
+         */
+        private final ObservableEmitter<TaskEvent> emitter;
+
+        /**
+         * Whether to omit the tasks from the emitted events.
+         */
+        private final boolean lite;
+
+        EventEmitter(ObservableEmitter<TaskEvent> emitter, boolean lite)
+            {
+            this.emitter = emitter;
+            this.lite    = lite;
+            }
+
+        @Override
+        public void entryInserted(MapEvent<String, Task> evt)
+            {
+            emit(TaskEvent.INSERT, evt.getKey(), evt.getNewValue());
+            }
+
+        @Override
+        public void entryUpdated(MapEvent<String, Task> evt)
+            {
+            emit(TaskEvent.UPDATE, evt.getKey(), evt.getNewValue());
+            }
+
+        @Override
+        public void entryDeleted(MapEvent<String, Task> evt)
+            {
+            emit(TaskEvent.DELETE, evt.getKey(), evt.getOldValue());
+            }
+
+        private void emit(String type, String id, Task task)
+            {
+            emitter.onNext(new TaskEvent(type, id, lite ? null : task));
+            }
+        }
+
+    // ---- inner class: SharedStream ---------------------------------------
+
+    /**
+     * A shared stream of coalesced changes for a single subscription,
+     * together with the recent changes that can be replayed.
+     */
+    private static final class SharedStream
+        {
+        /**
+         * The stream of live changes.
+         */
+        private Observable<List<TaskEvent>> live;
+
+        /**
+         * The recent changes.
+         */
+        private final ReplayBuffer recent;
+
+        SharedStream(ReplayBuffer recent)
+            {
+            this.recent = recent;
+            }
+        }
+
+    // ---- inner class: ReplayBuffer ---------------------------------------
+
+    /**
+     * A bounded ring buffer of recent events.
+     */
+    static final class ReplayBuffer
+        {
+        /**
+         * The maximum number of events in this buffer.
+         */
+        private final int capacity;
+
+        /**
+         * The events in this buffer, in sequence order.
+         */
+        private final ArrayDeque<TaskEvent> events;
+
+        /**
+         * The sequence number of the last event emitted before this buffer
+         * started recording.
+         */
+        private long startSequence;
+
+        /**
+         * The sequence number of the last event evicted from this buffer.
+         */
+        private long lastEvicted;
+
+        /**
+         * Construct {@link ReplayBuffer} instance.
+         *
+         * @param capacity       the maximum number of events in this buffer
+         * @param startSequence  the sequence number of the last event emitted
+         *                       before this buffer was created
+         */
+        ReplayBuffer(int capacity, long startSequence)
+            {
+            this.capacity      = capacity;
+            this.events        = new ArrayDeque<>(capacity);
+            this.startSequence = startSequence;
+            this.lastEvicted   = startSequence;
+            }
+
+        /**
+         * Discard all events in this buffer, and start recording again.
+         *
+         * @param startSequence  the sequence number of the last event emitted
+         *                       before this buffer started recording again
+         */
+        synchronized void reset(long startSequence)
+            {
+            this.events.clear();
+            this.startSequence = startSequence;
+            this.lastEvicted   = startSequence;
+            }
+
+        /**
+         * Add the specified events to this buffer, evicting the oldest events
+         * if necessary.
+         *
+         * @param list  the events to add, in sequence order
+         */
+        synchronized void addAll(List<TaskEvent> list)
+            {
+            for (TaskEvent event : list)
+                {
+                events.addLast(event);
+                if (events.size() > capacity)
+                    {
+                    lastEvicted = events.removeFirst().getSequence();
+                    }
+                }
+            }
+
+        /**
+         * Return the events that come after the specified sequence number.
+         *
+         * @param sequence  the sequence number of the last event received
+         *
+         * @return the events that come after the specified sequence number,
+         *         or {@code null} if some of those events have already been
+         *         evicted, or were never recorded by this buffer
+         */
+        synchronized List<TaskEvent> since(long sequence)
+            {
+            // the events received before this buffer was created may have been
+            // followed by the changes nobody was listening for
+            if (sequence <= startSequence || sequence < lastEvicted)
+                {
+                return null;
+                }
+
+            List<TaskEvent> list = new ArrayList<>();
+            for (TaskEvent event : events)
+                {
+                if (event.getSequence() > sequence)
+                    {
+                    list.add(event);
+                    }
+                }
+            return list;
+            }
+        }
+
+    // ---- inner class: ResyncException ------------------------------------
+
+    /**
+     * An exception indicating that the missed events cannot be replayed to
+     * a reconnecting subscriber.
+     */
+    private static final class ResyncException
+            extends RuntimeException
+        {
+        ResyncException(String message)
+            {
+            super(message);
+            }
+        }
+    }
@@ -7,13 +7,13 @@
 
 package com.oracle.coherence.examples.todo.server.api;
 
+import com.oracle.coherence.examples.todo.server.AsyncToDoListService;
 import com.oracle.coherence.examples.todo.server.Task;
 import com.oracle.coherence.examples.todo.server.TaskNotFoundException;
-import com.oracle.coherence.examples.todo.server.TaskRepository;
-
+import com.oracle.coherence.examples.todo.server.TaskPage;
+import com.oracle.coherence.examples.todo.server.TaskResult;
+import com.oracle.coherence.examples.todo.server.TaskStats;
 import com.oracle.coherence.examples.todo.server.ToDoListService;
-import com.tangosol.util.Filter;
-import com.tangosol.util.Filters;
 
 import graphql.GraphQL;
 
@@ -24,6 +24,7 @@ import graphql.schema.CoercingParseLiteralException;
 import graphql.schema.CoercingParseValueException;
 import graphql.schema.CoercingSerializeException;
 import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLScalarType;
 import graphql.schema.GraphQLSchema;
 
@@ -37,17 +38,20 @@ import io.micronaut.context.annotation.Factory;
 
 import io.micronaut.core.io.ResourceResolver;
 
+import io.micronaut.runtime.http.scope.RequestScope;
+
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 
 import java.math.BigInteger;
 import java.util.Collection;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
@@ -57,6 +61,12 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.MappedBatchLoader;
+
+import org.reactivestreams.Publisher;
+
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
 import static java.time.temporal.ChronoField.HOUR_OF_DAY;
 import static java.time.temporal.ChronoField.MINUTE_OF_HOUR;
@@ -72,13 +82,25 @@ public class ToDoListGraphQlFactory
     @Singleton
     @Inject
     public GraphQL graphQL(ResourceResolver resourceResolver,
-                           @Named("createTask") DataFetcher<Task> createTaskFetcher,
-                           @Named("deleteCompletedTasks") DataFetcher<Boolean> deleteCompletedTasksFetcher,
-                           @Named("deleteTask") DataFetcher<Task> deleteTaskFetcher,
-                           @Named("updateDescription") DataFetcher<Task> updateDescriptionFetcher,
-                           @Named("updateCompletionStatus") DataFetcher<Task> updateCompletionStatusFetcher,
-                           @Named("findTask") DataFetcher<Task> findTaskFetcher,
-                           @Named("tasks") DataFetcher<Collection<Task>> tasksFetcher)
+                           GraphQlMetricsInstrumentation metricsInstrumentation,
+                           CachingPreparsedDocumentProvider documentProvider,
+                           @Named("createTask") DataFetcher<CompletableFuture<Task>> createTaskFetcher,
+                           @Named("deleteCompletedTasks") DataFetcher<CompletableFuture<Boolean>> deleteCompletedTasksFetcher,
+                           @Named("deleteTask") DataFetcher<CompletableFuture<Task>> deleteTaskFetcher,
+                           @Named("updateDescription") DataFetcher<CompletableFuture<Task>> updateDescriptionFetcher,
+                           @Named("updateCompletionStatus") DataFetcher<CompletableFuture<Task>> updateCompletionStatusFetcher,
+                           @Named("findTask") DataFetcher<CompletableFuture<Task>> findTaskFetcher,
+                           @Named("tasks") DataFetcher<CompletableFuture<Collection<Task>>> tasksFetcher,
+                           @Named("tasksPage") DataFetcher<CompletableFuture<TaskPage>> tasksPageFetcher,
+                           @Named("taskStats") DataFetcher<CompletableFuture<TaskStats>> taskStatsFetcher,
+                           @Named("archivedTasks") DataFetcher<CompletableFuture<List<Task>>> archivedTasksFetcher,
+                           @Named("createTasks") DataFetcher<CompletableFuture<List<TaskResult>>> createTasksFetcher,
+                           @Named("deleteTasks") DataFetcher<CompletableFuture<List<TaskResult>>> deleteTasksFetcher,
+                           @Named("updateTasksCompletionStatus") DataFetcher<CompletableFuture<List<TaskResult>>> updateTasksCompletionStatusFetcher,
+                           @Named("updateAllCompletionStatus") DataFetcher<CompletableFuture<Integer>> updateAllCompletionStatusFetcher,
+                           @Named("taskCreated") DataFetcher<Publisher<Task>> taskCreatedFetcher,
+                           @Named("taskUpdated") DataFetcher<Publisher<Task>> taskUpdatedFetcher,
+                           @Named("taskDeleted") DataFetcher<Publisher<Task>> taskDeletedFetcher)
         {
         // Parse the schema.
         TypeDefinitionRegistry typeRegistry = new TypeDefinitionRegistry();
@@ -92,11 +114,21 @@ public class ToDoListGraphQlFactory
                 .scalar(LOCAL_DATE_TIME)
                 .type("Query", typeWiring -> typeWiring.dataFetcher("findTask", findTaskFetcher))
                 .type("Query", typeWiring -> typeWiring.dataFetcher("tasks", tasksFetcher))
+                .type("Query", typeWiring -> typeWiring.dataFetcher("tasksPage", tasksPageFetcher))
+                .type("Query", typeWiring -> typeWiring.dataFetcher("taskStats", taskStatsFetcher))
+                .type("Query", typeWiring -> typeWiring.dataFetcher("archivedTasks", archivedTasksFetcher))
                 .type("Mutation", typeWiring -> typeWiring.dataFetcher("createTask", createTaskFetcher))
                 .type("Mutation", typeWiring -> typeWiring.dataFetcher("deleteCompletedTasks", deleteCompletedTasksFetcher))
                 .type("Mutation", typeWiring -> typeWiring.dataFetcher("deleteTask", deleteTaskFetcher))
                 .type("Mutation", typeWiring -> typeWiring.dataFetcher("updateDescription", updateDescriptionFetcher))
                 .type("Mutation", typeWiring -> typeWiring.dataFetcher("updateCompletionStatus", updateCompletionStatusFetcher))
+                .type("Mutation", typeWiring -> typeWiring.dataFetcher("createTasks", createTasksFetcher))
+                .type("Mutation", typeWiring -> typeWiring.dataFetcher("deleteTasks", deleteTasksFetcher))
+                .type("Mutation", typeWiring -> typeWiring.dataFetcher("updateTasksCompletionStatus", updateTasksCompletionStatusFetcher))
+                .type("Mutation", typeWiring -> typeWiring.dataFetcher("updateAllCompletionStatus", updateAllCompletionStatusFetcher))
+                .type("Subscription", typeWiring -> typeWiring.dataFetcher("taskCreated", taskCreatedFetcher))
+                .type("Subscription", typeWiring -> typeWiring.dataFetcher("taskUpdated", taskUpdatedFetcher))
+                .type("Subscription", typeWiring -> typeWiring.dataFetcher("taskDeleted", taskDeletedFetcher))
                 .build();
 
         // Create the executable schema.
@@ -104,57 +136,149 @@ public class ToDoListGraphQlFactory
         GraphQLSchema graphQLSchema = schemaGenerator.makeExecutableSchema(typeRegistry, runtimeWiring);
 
         // Return the GraphQL bean.
-        return GraphQL.newGraphQL(graphQLSchema).build();
+        return GraphQL.newGraphQL(graphQLSchema)
+                .instrumentation(metricsInstrumentation)
+                .preparsedDocumentProvider(documentProvider)
+                .build();
         }
 
     @Bean
     @Singleton
     @Named("createTask")
-    public DataFetcher<Task> createTasksFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Task>> createTasksFetcher(AsyncToDoListService tasks)
         {
         return environment ->
-                tasks.createTask(environment.getArgument("description"));
+                tasks.createTask(owner(environment), environment.getArgument("description"));
         }
 
     @Bean
     @Singleton
     @Named("deleteCompletedTasks")
-    public DataFetcher<Boolean> deleteCompletedTasksFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Boolean>> deleteCompletedTasksFetcher(AsyncToDoListService tasks)
         {
-        return environment -> tasks.deleteCompletedTasks();
+        return environment -> tasks.deleteCompletedTasks(owner(environment));
         }
 
     @Bean
     @Singleton
     @Named("deleteTask")
-    public DataFetcher<Task> deleteTaskFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Task>> deleteTaskFetcher(AsyncToDoListService tasks)
         {
         return environment ->
                 tasks.deleteTask(environment.getArgument("id"));
         }
 
+    /**
+     * Create the registry of the {@link DataLoader}s for a single request.
+     * <p>
+     * The {@link #TASK_LOADER task loader} collects the ids of all tasks
+     * requested within a query, and fetches them using a single bulk
+     * operation.
+     *
+     * @param tasks  the service to load the tasks from
+     *
+     * @return the registry of the {@link DataLoader}s for a single request
+     */
+    @Bean
+    @RequestScope
+    public DataLoaderRegistry dataLoaderRegistry(AsyncToDoListService tasks)
+        {
+        MappedBatchLoader<String, Task> taskLoader = tasks::findTasks;
+
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        registry.register(TASK_LOADER, DataLoader.newMappedDataLoader(taskLoader));
+        return registry;
+        }
+
     @Bean
     @Singleton
     @Named("findTask")
-    public DataFetcher<Task> findTaskFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Task>> findTaskFetcher()
         {
         return environment ->
-                tasks.findTask(environment.getArgument("id"));
+            {
+            String                   id     = environment.getArgument("id");
+            DataLoader<String, Task> loader = environment.getDataLoader(TASK_LOADER);
+
+            return loader.load(id).thenApply(task ->
+                {
+                if (task == null)
+                    {
+                    throw new TaskNotFoundException(id);
+                    }
+                return task;
+                });
+            };
         }
 
     @Bean
     @Singleton
     @Named("tasks")
-    public DataFetcher<Collection<Task>> tasksFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Collection<Task>>> tasksFetcher(AsyncToDoListService tasks)
         {
         return environment ->
-                tasks.getTasks(environment.getArgument("completed"));
+            {
+            Boolean completed   = environment.getArgument("completed");
+            Long    createdFrom = toEpochMilli(environment.getArgument("createdFrom"));
+            Long    createdTo   = toEpochMilli(environment.getArgument("createdTo"));
+            String  search      = environment.getArgument("search");
+
+            return createdFrom == null && createdTo == null && search == null
+                   ? tasks.getTasks(owner(environment), completed)
+                   : tasks.searchTasks(owner(environment), completed, createdFrom, createdTo, search);
+            };
+        }
+
+    @Bean
+    @Singleton
+    @Named("tasksPage")
+    public DataFetcher<CompletableFuture<TaskPage>> tasksPageFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+            {
+            Boolean completed   = environment.getArgument("completed");
+            Long    createdFrom = toEpochMilli(environment.getArgument("createdFrom"));
+            Long    createdTo   = toEpochMilli(environment.getArgument("createdTo"));
+            String  search      = environment.getArgument("search");
+            String  after       = environment.getArgument("after");
+            Integer first       = environment.getArgument("first");
+            int     pageSize    = first == null ? ToDoListService.DEFAULT_PAGE_SIZE : first;
+
+            return createdFrom == null && createdTo == null && search == null
+                   ? tasks.getTasks(owner(environment), completed, after, pageSize)
+                   : tasks.searchTasks(owner(environment), completed, createdFrom, createdTo, search, after, pageSize);
+            };
+        }
+
+    @Bean
+    @Singleton
+    @Named("taskStats")
+    public DataFetcher<CompletableFuture<TaskStats>> taskStatsFetcher(AsyncToDoListService tasks)
+        {
+        return environment -> tasks.getTaskStats(owner(environment));
+        }
+
+    @Bean
+    @Singleton
+    @Named("archivedTasks")
+    public DataFetcher<CompletableFuture<List<Task>>> archivedTasksFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+            {
+            Long    completedFrom = toEpochMilli(environment.getArgument("completedFrom"));
+            Long    completedTo   = toEpochMilli(environment.getArgument("completedTo"));
+            String  search        = environment.getArgument("search");
+            Integer first         = environment.getArgument("first");
+            int     limit         = first == null ? ToDoListService.DEFAULT_PAGE_SIZE : first;
+
+            return tasks.getArchivedTasks(owner(environment), completedFrom, completedTo, search, limit);
+            };
         }
 
     @Bean
     @Singleton
     @Named("updateDescription")
-    public DataFetcher<Task> updateDescriptionFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Task>> updateDescriptionFetcher(AsyncToDoListService tasks)
         {
         return environment ->
             {
@@ -168,7 +292,7 @@ public class ToDoListGraphQlFactory
     @Bean
     @Singleton
     @Named("updateCompletionStatus")
-    public DataFetcher<Task> updateCompletionStatusFetcher(ToDoListService tasks)
+    public DataFetcher<CompletableFuture<Task>> updateCompletionStatusFetcher(AsyncToDoListService tasks)
         {
         return environment ->
             {
@@ -179,6 +303,143 @@ public class ToDoListGraphQlFactory
             };
         }
 
+    @Bean
+    @Singleton
+    @Named("createTasks")
+    public DataFetcher<CompletableFuture<List<TaskResult>>> createTasksBatchFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+                tasks.createTasks(owner(environment), environment.getArgument("descriptions"));
+        }
+
+    @Bean
+    @Singleton
+    @Named("deleteTasks")
+    public DataFetcher<CompletableFuture<List<TaskResult>>> deleteTasksFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+                tasks.deleteTasks(environment.getArgument("ids"));
+        }
+
+    @Bean
+    @Singleton
+    @Named("updateTasksCompletionStatus")
+    public DataFetcher<CompletableFuture<List<TaskResult>>> updateTasksCompletionStatusFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+            {
+            List<String> ids = environment.getArgument("ids");
+            boolean completed = environment.getArgument("completed");
+
+            return tasks.updateCompletionStatus(ids, completed);
+            };
+        }
+
+    @Bean
+    @Singleton
+    @Named("updateAllCompletionStatus")
+    public DataFetcher<CompletableFuture<Integer>> updateAllCompletionStatusFetcher(AsyncToDoListService tasks)
+        {
+        return environment ->
+            {
+            boolean completed = environment.getArgument("completed");
+
+            return tasks.updateAllCompletionStatus(owner(environment), completed);
+            };
+        }
+
+    @Bean
+    @Singleton
+    @Named("taskCreated")
+    public DataFetcher<Publisher<Task>> taskCreatedFetcher(TaskEventBroadcaster broadcaster)
+        {
+        return taskEventFetcher(broadcaster, TaskEvent.INSERT);
+        }
+
+    @Bean
+    @Singleton
+    @Named("taskUpdated")
+    public DataFetcher<Publisher<Task>> taskUpdatedFetcher(TaskEventBroadcaster broadcaster)
+        {
+        return taskEventFetcher(broadcaster, TaskEvent.UPDATE);
+        }
+
+    @Bean
+    @Singleton
+    @Named("taskDeleted")
+    public DataFetcher<Publisher<Task>> taskDeletedFetcher(TaskEventBroadcaster broadcaster)
+        {
+        return taskEventFetcher(broadcaster, TaskEvent.DELETE);
+        }
+
+    /**
+     * Create a subscription data fetcher that publishes the tasks from the
+     * task events of the specified type.
+     * <p>
+     * The shared stream also delivers the updates that move a task out of
+     * the subscription, so the server-sent event subscribers can remove it
+     * from their view; these are not published to the {@code GraphQL}
+     * subscribers, which only receive the tasks that match the
+     * {@code completed} argument.
+     *
+     * @param broadcaster  the broadcaster to subscribe to
+     * @param type         the type of the task events to publish
+     *
+     * @return a subscription data fetcher
+     */
+    private static DataFetcher<Publisher<Task>> taskEventFetcher(TaskEventBroadcaster broadcaster, String type)
+        {
+        return environment ->
+            {
+            Boolean completed = environment.getArgument("completed");
+
+            return broadcaster.taskEvents(owner(environment), completed)
+                    .filter(event -> type.equals(event.getType()))
+                    .filter(event -> completed == null || completed.equals(event.getTask().getCompleted()))
+                    .map(TaskEvent::getTask);
+            };
+        }
+
+    /**
+     * Return the user the request is scoped to.
+     *
+     * @param environment  the data fetching environment
+     *
+     * @return the user the request is scoped to, or {@code null} if the
+     *         request is not scoped to any user
+     */
+    private static String owner(DataFetchingEnvironment environment)
+        {
+        return environment.getGraphQlContext().get(OWNER);
+        }
+
+    /**
+     * Convert the specified local date and time into milliseconds since the
+     * epoch, using the same time zone as {@link Task#getCreatedAtDate()}.
+     *
+     * @param dateTime  the local date and time to convert, or {@code null}
+     *
+     * @return the milliseconds since the epoch, or {@code null} if the
+     *         specified date and time is {@code null}
+     */
+    private static Long toEpochMilli(LocalDateTime dateTime)
+        {
+        return dateTime == null
+               ? null
+               : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+    /**
+     * The key of the {@link graphql.GraphQLContext} entry that contains the
+     * user the request is scoped to.
+     */
+    public static final String OWNER = "owner";
+
+    /**
+     * The name of the {@link DataLoader} that loads tasks by id.
+     */
+    public static final String TASK_LOADER = "task";
+
     private static final DateTimeFormatter LOCAL_DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
             .parseCaseInsensitive()
             .append(ISO_LOCAL_DATE)
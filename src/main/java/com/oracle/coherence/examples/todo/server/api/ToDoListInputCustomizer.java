@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021 Oracle and/or its affiliates.
+ *
+ * Licensed under the Universal Permissive License v 1.0 as shown at
+ * https://oss.oracle.com/licenses/upl.
+ */
+
+package com.oracle.coherence.examples.todo.server.api;
+
+import graphql.ExecutionInput;
+
+import io.micronaut.configuration.graphql.DefaultGraphQLExecutionInputCustomizer;
+import io.micronaut.configuration.graphql.GraphQLExecutionInputCustomizer;
+
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Replaces;
+
+import io.micronaut.core.annotation.Nullable;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+
+import io.reactivex.Flowable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * The {@link GraphQLExecutionInputCustomizer} used by the {@code GraphQL}
+ * endpoints, which applies the {@link PersistedQueryInputCustomizer} and the
+ * {@link OwnerInputCustomizer} to each request, in that order.
+ */
+@Primary
+@Singleton
+@Replaces(DefaultGraphQLExecutionInputCustomizer.class)
+public class ToDoListInputCustomizer
+        implements GraphQLExecutionInputCustomizer
+    {
+    @Inject
+    private PersistedQueryInputCustomizer persistedQueryCustomizer;
+
+    @Inject
+    private OwnerInputCustomizer ownerCustomizer;
+
+    @Override
+    public Publisher<ExecutionInput> customize(ExecutionInput executionInput, HttpRequest httpRequest,
+                                               @Nullable MutableHttpResponse<String> httpResponse)
+        {
+        return Flowable.fromPublisher(persistedQueryCustomizer.customize(executionInput, httpRequest, httpResponse))
+                .concatMap(input -> ownerCustomizer.customize(input, httpRequest, httpResponse));
+        }
+    }
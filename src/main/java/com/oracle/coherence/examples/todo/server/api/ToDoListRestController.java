@@ -7,19 +7,29 @@
 
 package com.oracle.coherence.examples.todo.server.api;
 
+import com.oracle.coherence.examples.todo.server.AsyncToDoListService;
 import com.oracle.coherence.examples.todo.server.Task;
-import com.oracle.coherence.examples.todo.server.TaskRepository;
+import com.oracle.coherence.examples.todo.server.TaskNotFoundException;
+import com.oracle.coherence.examples.todo.server.TaskResult;
+import com.oracle.coherence.examples.todo.server.TaskStats;
+import com.oracle.coherence.examples.todo.server.TaskVersionTracker;
 import com.oracle.coherence.examples.todo.server.ToDoListService;
 import com.tangosol.net.Cluster;
 import com.tangosol.net.Member;
 
 import io.micronaut.core.annotation.Nullable;
 
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Error;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.Put;
@@ -27,13 +37,18 @@ import io.micronaut.http.annotation.QueryValue;
 
 import io.micronaut.http.sse.Event;
 
-import io.reactivex.BackpressureStrategy;
+import io.micronaut.http.uri.UriBuilder;
+
 import io.reactivex.Flowable;
-import io.reactivex.Observable;
 
-import java.util.Collection;
+import io.reactivex.schedulers.Schedulers;
 
-import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -42,98 +57,334 @@ import org.reactivestreams.Publisher;
 
 /**
  * REST API for To Do list management.
+ * <p>
+ * The operations on multiple tasks can be scoped to the tasks of a single
+ * user, specified using the {@value #USER_HEADER} header, and the tasks
+ * created by the requests with that header belong to that user.
  */
 @Controller("/api/tasks")
 @Singleton
 public class ToDoListRestController
     {
     @Inject
-    private ToDoListService api;
+    private AsyncToDoListService api;
 
     @Inject
-    private TaskRepository tasks;
+    private ToDoListService syncApi;
 
     @Inject
-    private Cluster cluster;
+    private TaskEventBroadcaster broadcaster;
 
-    private Flowable<Event<Task>> flowable;
+    @Inject
+    private Cluster cluster;
 
-    @PostConstruct
-    void createBroadcaster()
-        {
-        Observable<Event<Task>> source = Observable.<Event<Task>>create(emitter ->
-            {
-            TaskRepository.Listener<Task> listener = tasks.listener()
-                    .onInsert(task -> emitter.onNext(createEvent("insert", task)))
-                    .onUpdate(task -> emitter.onNext(createEvent("update", task)))
-                    .onRemove(task -> emitter.onNext(createEvent("delete", task))).build();
-            tasks.addListener(listener);
-            emitter.setCancellable(() -> tasks.removeListener(listener));
-            }).share();
-        this.flowable = source.toFlowable(BackpressureStrategy.BUFFER);
-        }
+    @Inject
+    private TaskVersionTracker versions;
 
-    private Event<Task> createEvent(String name, Task task)
-        {
-        return Event.of(task).name(name);
-        }
+    /**
+     * The name of the header that specifies the user the request is scoped to.
+     */
+    public static final String USER_HEADER = "X-Todo-User";
 
     @SuppressWarnings("unchecked")
     @Get(value = "/events", produces = MediaType.TEXT_EVENT_STREAM)
-    public Publisher<Event<?>> registerEventListener()
+    public Publisher<Event<?>> registerEventListener(@Nullable @Header(value = USER_HEADER) String owner,
+                                                     @Nullable @QueryValue(value = "completed") Boolean completed,
+                                                     @Nullable @QueryValue(value = "ids") List<String> ids,
+                                                     @Nullable @QueryValue(value = "lite") Boolean lite,
+                                                     @Nullable @QueryValue(value = "batch") Boolean batch,
+                                                     @Nullable @Header(value = "Last-Event-ID") String lastEventId)
         {
         Member        member       = cluster.getLocalMember();
         Event<String> initialEvent = Event.of(member.toString());
         initialEvent.name("begin");
 
-        return Flowable.concatArray(Flowable.fromArray(initialEvent), flowable);
+        return Flowable.concatArray(Flowable.fromArray(initialEvent),
+                                    broadcaster.events(owner, completed, ids,
+                                                       Boolean.TRUE.equals(lite),
+                                                       Boolean.TRUE.equals(batch),
+                                                       lastEventId));
         }
 
     @Get(produces = MediaType.APPLICATION_JSON)
-    public Collection<Task> getTasks(@Nullable @QueryValue(value = "completed") Boolean completed)
+    public CompletableFuture<HttpResponse<Collection<Task>>> getTasks(HttpRequest<?> request,
+                                                                      @Nullable @Header(value = HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                                      @Nullable @Header(value = USER_HEADER) String owner,
+                                                                      @Nullable @QueryValue(value = "completed") Boolean completed,
+                                                                      @Nullable @QueryValue(value = "createdFrom") Long createdFrom,
+                                                                      @Nullable @QueryValue(value = "createdTo") Long createdTo,
+                                                                      @Nullable @QueryValue(value = "q") String text,
+                                                                      @Nullable @QueryValue(value = "after") String after,
+                                                                      @Nullable @QueryValue(value = "limit") Integer limit)
+        {
+        String etag = etag(request, version(owner));
+        if (matches(ifNoneMatch, etag))
+            {
+            return CompletableFuture.completedFuture(HttpResponse.notModified());
+            }
+
+        boolean search = createdFrom != null || createdTo != null || text != null;
+        if (after == null && limit == null)
+            {
+            return (search
+                    ? api.searchTasks(owner, completed, createdFrom, createdTo, text)
+                    : api.getTasks(owner, completed))
+                    .thenApply(tasks -> HttpResponse.ok(tasks).header(HttpHeaders.ETAG, etag));
+            }
+
+        int pageSize = limit == null ? ToDoListService.DEFAULT_PAGE_SIZE : limit;
+        return (search
+                ? api.searchTasks(owner, completed, createdFrom, createdTo, text, after, pageSize)
+                : api.getTasks(owner, completed, after, pageSize))
+                .thenApply(page ->
+                    {
+                    MutableHttpResponse<Collection<Task>> response = HttpResponse.ok(page.getTasks())
+                            .header(HttpHeaders.ETAG, etag);
+                    if (page.isHasNextPage())
+                        {
+                        UriBuilder next = UriBuilder.of("/api/tasks")
+                                .queryParam("after", page.getEndCursor())
+                                .queryParam("limit", page.getTasks().size());
+                        if (completed != null)
+                            {
+                            next.queryParam("completed", completed);
+                            }
+                        if (createdFrom != null)
+                            {
+                            next.queryParam("createdFrom", createdFrom);
+                            }
+                        if (createdTo != null)
+                            {
+                            next.queryParam("createdTo", createdTo);
+                            }
+                        if (text != null)
+                            {
+                            next.queryParam("q", text);
+                            }
+                        response.header(HttpHeaders.LINK, "<" + next.build() + ">; rel=\"next\"");
+                        }
+                    return response;
+                    });
+        }
+
+    @Get(value = "/stream", produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON_STREAM})
+    public Publisher<Task> streamTasks(@Nullable @Header(value = USER_HEADER) String owner,
+                                       @Nullable @QueryValue(value = "completed") Boolean completed)
+        {
+        return Flowable.fromIterable(() -> syncApi.streamTasks(owner, completed).iterator())
+                .subscribeOn(Schedulers.io());
+        }
+
+    @Get(value = "/stats", produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<TaskStats>> getTaskStats(HttpRequest<?> request,
+                                                                   @Nullable @Header(value = HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                                   @Nullable @Header(value = USER_HEADER) String owner)
+        {
+        String etag = etag(request, version(owner));
+        if (matches(ifNoneMatch, etag))
+            {
+            return CompletableFuture.completedFuture(HttpResponse.notModified());
+            }
+
+        return api.getTaskStats(owner).thenApply(stats -> HttpResponse.ok(stats).header(HttpHeaders.ETAG, etag));
+        }
+
+    @Get(value = "/archive", produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<List<Task>>> getArchivedTasks(HttpRequest<?> request,
+                                                                        @Nullable @Header(value = HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                                        @Nullable @Header(value = USER_HEADER) String owner,
+                                                                        @Nullable @QueryValue(value = "completedFrom") Long completedFrom,
+                                                                        @Nullable @QueryValue(value = "completedTo") Long completedTo,
+                                                                        @Nullable @QueryValue(value = "q") String text,
+                                                                        @Nullable @QueryValue(value = "limit") Integer limit)
+        {
+        // the archived tasks are either moved from the tasks cache, or
+        // deleted once their retention period expires, so the tag covers
+        // both the task versions and the version of the archive
+        String etag = etag(request, version(owner) + versions.getArchiveVersion());
+        if (matches(ifNoneMatch, etag))
+            {
+            return CompletableFuture.completedFuture(HttpResponse.notModified());
+            }
+
+        int pageSize = limit == null ? ToDoListService.DEFAULT_PAGE_SIZE : limit;
+        return api.getArchivedTasks(owner, completedFrom, completedTo, text, pageSize)
+                .thenApply(tasks -> HttpResponse.ok(tasks).header(HttpHeaders.ETAG, etag));
+        }
+
+    @Get(value = "{id}", produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<Task>> findTask(HttpRequest<?> request,
+                                                          @Nullable @Header(value = HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                          @PathVariable("id") String id)
+        {
+        String etag = etag(request, versions.getVersion(id));
+        if (matches(ifNoneMatch, etag))
+            {
+            return CompletableFuture.completedFuture(HttpResponse.notModified());
+            }
+
+        return api.findTask(id).thenApply(task -> HttpResponse.ok(task).header(HttpHeaders.ETAG, etag));
+        }
+
+    @Error(exception = IllegalArgumentException.class)
+    public HttpResponse<String> badRequest(IllegalArgumentException e)
+        {
+        return HttpResponse.badRequest(e.getMessage());
+        }
+
+    @Error(exception = TaskNotFoundException.class)
+    public HttpResponse<String> notFound(TaskNotFoundException e)
         {
-        return api.getTasks(completed);
+        return HttpResponse.notFound(e.getMessage());
         }
 
     @Post(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
-    public Task createTask(Task task)
+    public CompletableFuture<Task> createTask(@Nullable @Header(value = USER_HEADER) String owner, Task task)
         {
-        return api.createTask(task.getDescription());
+        return api.createTask(owner, task.getDescription());
+        }
+
+    @Post(value = "/batch", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<Map<String, List<TaskResult>>> batch(@Nullable @Header(value = USER_HEADER) String owner,
+                                                                  TaskBatch batch)
+        {
+        Map<String, List<TaskResult>> results = new LinkedHashMap<>();
+
+        // the operations are performed in order, one after another
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        if (batch.getCreate() != null)
+            {
+            future = future.thenCompose(ignore -> api.createTasks(owner, batch.getCreate()))
+                    .thenAccept(list -> results.put("create", list));
+            }
+        if (batch.getComplete() != null)
+            {
+            future = future.thenCompose(ignore -> api.updateCompletionStatus(batch.getComplete(), true))
+                    .thenAccept(list -> results.put("complete", list));
+            }
+        if (batch.getReopen() != null)
+            {
+            future = future.thenCompose(ignore -> api.updateCompletionStatus(batch.getReopen(), false))
+                    .thenAccept(list -> results.put("reopen", list));
+            }
+        if (batch.getDelete() != null)
+            {
+            future = future.thenCompose(ignore -> api.deleteTasks(batch.getDelete()))
+                    .thenAccept(list -> results.put("delete", list));
+            }
+
+        return future.thenApply(ignore -> results);
         }
 
     @Delete("{id}")
-    public Task deleteTask(@PathVariable("id") String id)
+    public CompletableFuture<Task> deleteTask(@PathVariable("id") String id)
         {
         return api.deleteTask(id);
         }
 
     @Delete
-    public boolean deleteCompletedTasks()
+    public CompletableFuture<Boolean> deleteCompletedTasks(@Nullable @Header(value = USER_HEADER) String owner)
+        {
+        return api.deleteCompletedTasks(owner);
+        }
+
+    @Put(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<Integer> updateAllTasks(@Nullable @Header(value = USER_HEADER) String owner, Task task)
         {
-        return api.deleteCompletedTasks();
+        Boolean completed = task.getCompleted();
+        if (completed == null)
+            {
+            throw new IllegalArgumentException("completed is required");
+            }
+
+        return api.updateAllCompletionStatus(owner, completed);
         }
 
     @Put(value = "{id}",
             consumes = MediaType.APPLICATION_JSON,
             produces = MediaType.APPLICATION_JSON)
-    public Task updateTask(@PathVariable("id") String id, Task task)
+    public CompletableFuture<Task> updateTask(@PathVariable("id") String id, Task task)
         {
-        Task result = null;
-
         String  description = task.getDescription();
         Boolean completed   = task.getCompleted();
 
         if (description != null)
             {
-            result = api.updateDescription(id, description);
+            return api.updateDescription(id, description);
             }
         else if (completed != null)
             {
-            result = api.updateCompletionStatus(id, completed);
+            return api.updateCompletionStatus(id, completed);
             }
 
-        return result == null
-               ? api.findTask(id)
-               : result;
+        return api.findTask(id);
+        }
+
+    // ---- conditional request support -------------------------------------
+
+    /**
+     * Create an entity tag for the response to the specified request, based
+     * on the specified version of the tasks the response is created from.
+     * <p>
+     * The tag also covers the path, the query parameters and the user of the
+     * request, and the {@link TaskVersionTracker#getEpoch() epoch} the version
+     * is relative to.
+     *
+     * @param request  the request
+     * @param version  the version of the tasks the response is created from
+     *
+     * @return the entity tag
+     */
+    private String etag(HttpRequest<?> request, long version)
+        {
+        int variant = Objects.hash(request.getPath(),
+                                   request.getUri().getRawQuery(),
+                                   request.getHeaders().get(USER_HEADER));
+
+        return "\"" + versions.getEpoch() + '-' + Long.toString(version, 36) + '-' + Integer.toHexString(variant) + "\"";
+        }
+
+    /**
+     * Return the version of the tasks of the specified user.
+     *
+     * @param owner  optional name of the user
+     *
+     * @return the version of the partition the tasks of the specified user
+     *         are stored in, or the version of all tasks if the user is not
+     *         specified
+     */
+    private long version(String owner)
+        {
+        return owner == null ? versions.getVersion() : versions.getVersion(Task.validateOwner(owner));
+        }
+
+    /**
+     * Return whether the value of the {@code If-None-Match} header matches
+     * the specified entity tag.
+     *
+     * @param ifNoneMatch  the value of the {@code If-None-Match} header
+     * @param etag         the entity tag
+     *
+     * @return true if the header value contains the entity tag
+     */
+    private static boolean matches(String ifNoneMatch, String etag)
+        {
+        if (ifNoneMatch == null)
+            {
+            return false;
+            }
+        for (String tag : ifNoneMatch.split(","))
+            {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                {
+                tag = tag.substring(2);
+                }
+            if (tag.equals(etag))
+                {
+                return true;
+                }
+            }
+        return false;
         }
     }